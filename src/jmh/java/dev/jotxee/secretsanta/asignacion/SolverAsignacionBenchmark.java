@@ -0,0 +1,58 @@
+package dev.jotxee.secretsanta.asignacion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generación de asignaciones tal como la hace {@code SorteoService.crearSorteo}: {@link SecureRandom} y
+ * {@link SolverAsignacion#resolver}, sin restricciones (camino directo del motor) y con grupos de 5
+ * y una exclusión por cada 10 participantes (solver con restricciones).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SolverAsignacionBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    private int participantes;
+
+    @Param({"DESARREGLO", "CICLO_UNICO"})
+    private ModoAsignacion modo;
+
+    private final SecureRandom random = new SecureRandom();
+    private RestriccionesAsignacion sinRestricciones;
+    private RestriccionesAsignacion conGrupos;
+
+    @Setup
+    public void preparar() {
+        sinRestricciones = RestriccionesAsignacion.ninguna(participantes);
+
+        RestriccionesAsignacion.Builder builder = RestriccionesAsignacion.builder(participantes);
+        for (int i = 0; i < participantes; i++) {
+            builder.grupo(i, i / 5);
+        }
+        for (int i = 0; i + 7 < participantes; i += 10) {
+            builder.excluirPareja(i, i + 7);
+        }
+        conGrupos = builder.build();
+    }
+
+    @Benchmark
+    public int[] sinRestricciones() {
+        return SolverAsignacion.resolver(sinRestricciones, modo, random);
+    }
+
+    @Benchmark
+    public int[] conGruposYExclusiones() {
+        return SolverAsignacion.resolver(conGrupos, modo, random);
+    }
+}
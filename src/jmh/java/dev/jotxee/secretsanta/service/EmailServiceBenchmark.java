@@ -0,0 +1,68 @@
+package dev.jotxee.secretsanta.service;
+
+import dev.jotxee.secretsanta.event.SorteoCreatedEvent;
+import dev.jotxee.secretsanta.util.EmailCryptoService;
+import dev.jotxee.secretsanta.util.PlantillaHtml;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preparación del email de resultado de un participante: solo el HTML ({@link PlantillaHtml#renderizar})
+ * y el mensaje MIME completo que entrega {@link EmailService#construirMensajeParticipante} al dispatcher.
+ * No se conecta a ningún servidor SMTP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmailServiceBenchmark {
+
+    private static final String BASE_URL = "https://secretsanta.example.com";
+
+    private EmailService emailService;
+    private PlantillaHtml plantillaSorteo;
+    private SorteoCreatedEvent.ParticipantPayload participante;
+
+    @Setup
+    public void preparar() throws ReflectiveOperationException {
+        PlantillasEmail plantillasEmail = new PlantillasEmail(BASE_URL);
+        emailService = new EmailService(new JavaMailSenderImpl(), plantillasEmail, null,
+                new EmailCryptoService("mySuperSecretKey123"));
+        // Fuera de Spring no hay @Value: se rellenan a mano
+        asignar("applicationBaseUrl", BASE_URL);
+        asignar("defaultSender", "no-reply@secretsanta.example.com");
+
+        plantillaSorteo = emailService.prepararPlantillaSorteo("Amigo invisible oficina", 20.0, 30.0);
+        participante = new SorteoCreatedEvent.ParticipantPayload(1L, "Ana María", "ana@example.com", null,
+                UUID.randomUUID().toString());
+    }
+
+    private void asignar(String campo, String valor) throws ReflectiveOperationException {
+        Field field = EmailService.class.getDeclaredField(campo);
+        field.setAccessible(true);
+        field.set(emailService, valor);
+    }
+
+    @Benchmark
+    public String renderizarHtml() {
+        return plantillaSorteo.renderizar(Map.of(
+                PlantillasEmail.PARTICIPANT_NAME, participante.name(),
+                PlantillasEmail.REVEAL_URL, BASE_URL + "/?id=" + participante.token()));
+    }
+
+    @Benchmark
+    public MimeMessage construirMensaje() throws Exception {
+        return emailService.construirMensajeParticipante("Amigo invisible oficina", plantillaSorteo, participante);
+    }
+}
@@ -0,0 +1,34 @@
+package dev.jotxee.secretsanta.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PasswordGeneratorService#generatePassword}, con uno y con varios hilos compartiendo su {@code SecureRandom}
+ * (como cuando {@link PasswordHashingService} reparte un sorteo grande entre sus hilos).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PasswordGeneratorBenchmark {
+
+    private final PasswordGeneratorService passwordGeneratorService = new PasswordGeneratorService();
+
+    @Benchmark
+    public String unHilo() {
+        return passwordGeneratorService.generatePassword();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String cuatroHilos() {
+        return passwordGeneratorService.generatePassword();
+    }
+}
@@ -0,0 +1,29 @@
+package dev.jotxee.secretsanta.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CurrencyFormatter#formatAmount} con importes enteros y con decimales (se llama al preparar
+ * cada email de sorteo y al pintar las páginas).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CurrencyFormatterBenchmark {
+
+    @Param({"50.0", "49.99", "1234.5"})
+    private double importe;
+
+    @Benchmark
+    public String formatAmount() {
+        return CurrencyFormatter.formatAmount(importe);
+    }
+}
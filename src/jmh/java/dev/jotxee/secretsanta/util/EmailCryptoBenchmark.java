@@ -0,0 +1,120 @@
+package dev.jotxee.secretsanta.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de descifrar los emails de un sorteo (lo que hace {@code findBySorteoIdWithUsuario}): un {@link Cipher}
+ * nuevo por valor, como antes, frente a {@link EmailCryptoService} con cifradores por hilo. Cada pareja usa el
+ * mismo modo para medir solo la reutilización del cifrador: {@code ecbPorLlamada}/{@code servicioLegado} sobre
+ * valores del esquema anterior y {@code gcmPorLlamada}/{@code servicioCompartido} sobre valores {@code v2:}.
+ * También el cifrado y el índice de todos los emails de un sorteo nuevo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmailCryptoBenchmark {
+
+    private static final String CLAVE = "mySuperSecretKey123";
+
+    @Param({"1000"})
+    private int participantes;
+
+    private EmailCryptoService emailCryptoService;
+    private SecretKeySpec secretKey;
+    private SecretKeySpec claveGcm;
+    private List<String> emails;
+    private List<String> cifrados;
+    private List<String> cifradosLegado;
+
+    @Setup
+    public void preparar() throws Exception {
+        emailCryptoService = new EmailCryptoService(CLAVE);
+        byte[] keyPadded = new byte[16];
+        System.arraycopy(CLAVE.getBytes(), 0, keyPadded, 0, 16);
+        secretKey = new SecretKeySpec(keyPadded, "AES");
+        // Misma derivación que EmailCryptoService para la clave GCM
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(CLAVE.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        claveGcm = new SecretKeySpec(mac.doFinal("secretsanta-email-gcm".getBytes(StandardCharsets.UTF_8)), "AES");
+
+        emails = new ArrayList<>(participantes);
+        for (int i = 0; i < participantes; i++) {
+            emails.add("participante" + i + "@example.com");
+        }
+        cifrados = emailCryptoService.encryptAll(emails);
+        cifradosLegado = emails.stream().map(emailCryptoService::encryptLegado).toList();
+    }
+
+    @Benchmark
+    public List<String> ecbPorLlamada() throws Exception {
+        List<String> emails = new ArrayList<>(cifradosLegado.size());
+        for (String cifrado : cifradosLegado) {
+            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+            cipher.init(Cipher.DECRYPT_MODE, secretKey);
+            emails.add(new String(cipher.doFinal(Base64.getDecoder().decode(cifrado)), StandardCharsets.UTF_8));
+        }
+        return emails;
+    }
+
+    @Benchmark
+    public List<String> servicioLegado() {
+        List<String> emails = new ArrayList<>(cifradosLegado.size());
+        for (String cifrado : cifradosLegado) {
+            emails.add(emailCryptoService.decrypt(cifrado));
+        }
+        return emails;
+    }
+
+    @Benchmark
+    public List<String> gcmPorLlamada() throws Exception {
+        List<String> emails = new ArrayList<>(cifrados.size());
+        for (String cifrado : cifrados) {
+            byte[] datos = Base64.getDecoder().decode(cifrado.substring(EmailCryptoService.PREFIJO_V2.length()));
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, claveGcm, new GCMParameterSpec(128, datos, 0, 12));
+            emails.add(new String(cipher.doFinal(datos, 12, datos.length - 12), StandardCharsets.UTF_8));
+        }
+        return emails;
+    }
+
+    @Benchmark
+    public List<String> servicioCompartido() {
+        List<String> emails = new ArrayList<>(cifrados.size());
+        for (String cifrado : cifrados) {
+            emails.add(emailCryptoService.decrypt(cifrado));
+        }
+        return emails;
+    }
+
+    @Benchmark
+    public List<String> servicioEnBloque() {
+        return emailCryptoService.decryptAll(cifrados);
+    }
+
+    @Benchmark
+    public List<String> cifrarEnBloque() {
+        return emailCryptoService.encryptAll(emails);
+    }
+
+    @Benchmark
+    public List<String> indiceEnBloque() {
+        return emailCryptoService.indiceAll(emails);
+    }
+}
@@ -0,0 +1,89 @@
+package dev.jotxee.secretsanta.carga;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencias de cada endpoint durante la prueba. Se guardan todas las muestras (una prueba de minutos son
+ * pocos millones de longs) para calcular percentiles exactos al final.
+ */
+class Latencias {
+
+    private static final class Serie {
+        private long[] muestras = new long[1024];
+        private int total;
+        private int errores;
+
+        synchronized void registrar(long nanos, boolean ok) {
+            if (total == muestras.length) {
+                muestras = Arrays.copyOf(muestras, total * 2);
+            }
+            muestras[total++] = nanos;
+            if (!ok) {
+                errores++;
+            }
+        }
+
+        synchronized Resumen resumir(String endpoint, Duration duracion) {
+            long[] ordenadas = Arrays.copyOf(muestras, total);
+            Arrays.sort(ordenadas);
+            return new Resumen(endpoint, total, errores, total / Math.max(0.001, duracion.toMillis() / 1000.0),
+                    percentil(ordenadas, 0.50), percentil(ordenadas, 0.99), percentil(ordenadas, 0.999),
+                    total == 0 ? 0 : ordenadas[total - 1]);
+        }
+
+        private static long percentil(long[] ordenadas, double p) {
+            if (ordenadas.length == 0) {
+                return 0;
+            }
+            int indice = (int) Math.ceil(p * ordenadas.length) - 1;
+            return ordenadas[Math.max(0, Math.min(indice, ordenadas.length - 1))];
+        }
+    }
+
+    /**
+     * Resultado de un endpoint; las latencias en nanosegundos.
+     */
+    record Resumen(String endpoint, int peticiones, int errores, double porSegundo,
+                   long p50, long p99, long p999, long maximo) {
+
+        String fila() {
+            return String.format(Locale.ROOT, "%-22s %9d %8d %10.1f %10.1f %10.1f %10.1f %10.1f",
+                    endpoint, peticiones, errores, porSegundo, ms(p50), ms(p99), ms(p999), ms(maximo));
+        }
+
+        String json() {
+            return String.format(Locale.ROOT,
+                    "{\"endpoint\":\"%s\",\"peticiones\":%d,\"errores\":%d,\"porSegundo\":%.2f,"
+                            + "\"p50Ms\":%.3f,\"p99Ms\":%.3f,\"p999Ms\":%.3f,\"maximoMs\":%.3f}",
+                    endpoint, peticiones, errores, porSegundo, ms(p50), ms(p99), ms(p999), ms(maximo));
+        }
+
+        private static double ms(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+
+    static final String CABECERA = String.format(Locale.ROOT, "%-22s %9s %8s %10s %10s %10s %10s %10s",
+            "endpoint", "peticiones", "errores", "pet/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+
+    private final Map<String, Serie> series = new ConcurrentHashMap<>();
+
+    void registrar(String endpoint, long nanos, boolean ok) {
+        series.computeIfAbsent(endpoint, e -> new Serie()).registrar(nanos, ok);
+    }
+
+    /**
+     * Un resumen por endpoint, en orden alfabético.
+     */
+    Map<String, Resumen> resumir(Duration duracion) {
+        Map<String, Resumen> resumenes = new TreeMap<>();
+        series.forEach((endpoint, serie) -> resumenes.put(endpoint, serie.resumir(endpoint, duracion)));
+        return resumenes;
+    }
+}
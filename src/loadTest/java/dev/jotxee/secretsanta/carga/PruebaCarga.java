@@ -0,0 +1,263 @@
+package dev.jotxee.secretsanta.carga;
+
+import dev.jotxee.secretsanta.SecretsantaApplication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Prueba de carga de extremo a extremo: arranca la aplicación con el perfil {@code carga} contra una base
+ * de datos local y {@link SumideroSmtp} como relay, y lanza a la vez tres flujos durante {@code carga.duracion}:
+ * <ul>
+ *   <li>creación de sorteos grandes ({@code POST /create}) con la sesión del admin;</li>
+ *   <li>revelaciones ({@code /?id=} y {@code /api/reveal}) con los tokens que llegan al sumidero;</li>
+ *   <li>login de participantes con las contraseñas que llegan al sumidero, seguido de {@code /my-profile}.</li>
+ * </ul>
+ * Al terminar imprime peticiones, errores, peticiones por segundo y p50/p99/p999 por endpoint, y lo deja en JSON.
+ *
+ * Se lanza con {@code ./gradlew loadTest}; los parámetros son propiedades {@code -Pcarga.*} (ver {@link Config}).
+ */
+public final class PruebaCarga {
+
+    private static final Logger log = LoggerFactory.getLogger(PruebaCarga.class);
+
+    /** El login correcto redirige a la página del usuario; el fallido, el limitado o el saturado vuelven a /login. */
+    private static final Predicate<HttpResponse<Void>> LOGIN_CORRECTO = r -> r.statusCode() == 302
+            && !r.headers().firstValue("Location").orElse("/login").contains("/login");
+
+    /**
+     * Parámetros de la prueba, leídos de propiedades del sistema {@code carga.*}.
+     */
+    record Config(Duration duracion, int creadores, int participantesPorSorteo, int revelaciones, int perfiles,
+                  int sorteosSemilla, int participantesSemilla, Duration esperaEmails, Path salida) {
+
+        static Config desdePropiedades() {
+            return new Config(
+                    Duration.parse(System.getProperty("carga.duracion", "PT1M")),
+                    Integer.getInteger("carga.creadores", 2),
+                    Integer.getInteger("carga.participantes", 500),
+                    Integer.getInteger("carga.revelaciones", 50),
+                    Integer.getInteger("carga.perfiles", 20),
+                    Integer.getInteger("carga.semilla.sorteos", 5),
+                    Integer.getInteger("carga.semilla.participantes", 100),
+                    Duration.parse(System.getProperty("carga.espera-emails", "PT2M")),
+                    Path.of(System.getProperty("carga.salida", "build/reports/carga/resultado.json")));
+        }
+
+        String json() {
+            return String.format(Locale.ROOT,
+                    "{\"duracion\":\"%s\",\"creadores\":%d,\"participantes\":%d,\"revelaciones\":%d,\"perfiles\":%d,"
+                            + "\"semillaSorteos\":%d,\"semillaParticipantes\":%d}",
+                    duracion, creadores, participantesPorSorteo, revelaciones, perfiles, sorteosSemilla, participantesSemilla);
+        }
+    }
+
+    private final Config config;
+    private final String base;
+    private final SumideroSmtp sumidero;
+    private final String adminUsuario;
+    private final String adminPassword;
+    private final HttpClient http = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final Latencias latencias = new Latencias();
+    private final String ejecucion = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicInteger sorteos = new AtomicInteger();
+
+    private PruebaCarga(Config config, String base, SumideroSmtp sumidero, String adminUsuario, String adminPassword) {
+        this.config = config;
+        this.base = base;
+        this.sumidero = sumidero;
+        this.adminUsuario = adminUsuario;
+        this.adminPassword = adminPassword;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = Config.desdePropiedades();
+        try (SumideroSmtp sumidero = new SumideroSmtp();
+             ConfigurableApplicationContext app = new SpringApplicationBuilder(SecretsantaApplication.class)
+                     .profiles("carga")
+                     .properties(Map.of("server.port", "0", "spring.mail.port", sumidero.puerto()))
+                     .run(args)) {
+            var entorno = app.getEnvironment();
+            String base = "http://localhost:" + entorno.getProperty("local.server.port");
+            log.info("Aplicación en {}, sumidero SMTP en el puerto {}", base, sumidero.puerto());
+            new PruebaCarga(config, base, sumidero,
+                    entorno.getRequiredProperty("admin.user"), entorno.getRequiredProperty("admin.password")).ejecutar();
+        }
+    }
+
+    private void ejecutar() throws Exception {
+        String admin = login(adminUsuario, adminPassword, "semilla POST /login");
+        if (admin == null) {
+            throw new IllegalStateException("No se pudo iniciar sesión como admin: revisa admin.user/admin.password");
+        }
+        sembrar(admin);
+
+        log.info("Lanzando carga durante {}: {} creadores, {} revelaciones, {} perfiles",
+                config.duracion(), config.creadores(), config.revelaciones(), config.perfiles());
+        long fin = System.nanoTime() + config.duracion().toNanos();
+        List<Future<?>> flujos = new ArrayList<>();
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.creadores(); i++) {
+                flujos.add(hilos.submit(() -> repetir(fin, () -> crearSorteo(admin, config.participantesPorSorteo(), "POST /create"))));
+            }
+            for (int i = 0; i < config.revelaciones(); i++) {
+                flujos.add(hilos.submit(() -> repetir(fin, () -> revelar(admin))));
+            }
+            for (int i = 0; i < config.perfiles(); i++) {
+                flujos.add(hilos.submit(() -> repetir(fin, this::navegarPerfil)));
+            }
+            for (Future<?> flujo : flujos) {
+                flujo.get();
+            }
+        }
+
+        informar();
+    }
+
+    /**
+     * Crea los primeros sorteos y espera a que el outbox entregue sus emails: de ahí salen los tokens y contraseñas.
+     */
+    private void sembrar(String admin) throws InterruptedException {
+        int esperados = config.sorteosSemilla() * config.participantesSemilla();
+        log.info("Creando {} sorteos semilla de {} participantes", config.sorteosSemilla(), config.participantesSemilla());
+        for (int i = 0; i < config.sorteosSemilla(); i++) {
+            crearSorteo(admin, config.participantesSemilla(), "semilla POST /create");
+        }
+
+        long limite = System.nanoTime() + config.esperaEmails().toNanos();
+        while ((sumidero.tokens() < esperados || sumidero.credenciales() < esperados) && System.nanoTime() < limite) {
+            log.info("Esperando emails: {} tokens y {} contraseñas de {}", sumidero.tokens(), sumidero.credenciales(), esperados);
+            Thread.sleep(2000);
+        }
+        if (sumidero.tokens() == 0 || sumidero.credenciales() == 0) {
+            throw new IllegalStateException("No ha llegado ningún email al sumidero: ¿está activo app.mail.outbox?");
+        }
+        log.info("Semilla lista: {} tokens y {} contraseñas", sumidero.tokens(), sumidero.credenciales());
+    }
+
+    private void repetir(long fin, Runnable paso) {
+        while (System.nanoTime() < fin) {
+            paso.run();
+        }
+    }
+
+    private void crearSorteo(String admin, int participantes, String endpoint) {
+        int sorteo = sorteos.incrementAndGet();
+        Map<String, String> formulario = new LinkedHashMap<>();
+        formulario.put("nombre", "Carga " + ejecucion + " #" + sorteo);
+        formulario.put("nombreInterno", "carga-" + ejecucion + "-" + sorteo);
+        formulario.put("importeMinimo", "10");
+        formulario.put("importeMaximo", "30");
+        for (int i = 0; i < participantes; i++) {
+            formulario.put("participantes[" + i + "].nombre", "Participante " + i);
+            formulario.put("participantes[" + i + "].email", "carga-" + ejecucion + "-" + sorteo + "-" + i + "@example.test");
+            formulario.put("participantes[" + i + "].genero", i % 2 == 0 ? "mujer" : "hombre");
+        }
+        enviar(endpoint, post("/create", formulario).header("Cookie", admin).build(),
+                r -> r.statusCode() == 302);
+    }
+
+    private void revelar(String admin) {
+        String token = sumidero.tokenAlAzar();
+        enviar("GET /?id=", get("/?id=" + token).build(), r -> r.statusCode() == 200);
+        enviar("GET /api/reveal", get("/api/reveal?token=" + token).header("Cookie", admin).build(),
+                r -> r.statusCode() == 200);
+    }
+
+    private void navegarPerfil() {
+        SumideroSmtp.Credencial credencial = sumidero.credencialAlAzar();
+        String sesion = login(credencial.email(), credencial.password(), "POST /login");
+        if (sesion == null) {
+            return;
+        }
+        for (int i = 0; i < 3; i++) {
+            enviar("GET /my-profile", get("/my-profile").header("Cookie", sesion).build(), r -> r.statusCode() == 200);
+        }
+    }
+
+    /**
+     * @return la cookie de sesión, o null si el login no ha ido a la página del usuario
+     */
+    private String login(String usuario, String password, String endpoint) {
+        HttpResponse<Void> respuesta = enviar(endpoint,
+                post("/login", Map.of("username", usuario, "password", password)).build(), LOGIN_CORRECTO);
+        if (respuesta == null || !LOGIN_CORRECTO.test(respuesta)) {
+            return null;
+        }
+        return respuesta.headers().allValues("Set-Cookie").stream()
+                .filter(cookie -> cookie.startsWith("JSESSIONID="))
+                .map(cookie -> cookie.substring(0, cookie.indexOf(';') > 0 ? cookie.indexOf(';') : cookie.length()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private HttpResponse<Void> enviar(String endpoint, HttpRequest peticion, Predicate<HttpResponse<Void>> correcta) {
+        long inicio = System.nanoTime();
+        try {
+            HttpResponse<Void> respuesta = http.send(peticion, HttpResponse.BodyHandlers.discarding());
+            latencias.registrar(endpoint, System.nanoTime() - inicio, correcta.test(respuesta));
+            return respuesta;
+        } catch (IOException e) {
+            latencias.registrar(endpoint, System.nanoTime() - inicio, false);
+            log.debug("{} falló: {}", endpoint, e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Prueba de carga interrumpida", e);
+        }
+    }
+
+    private HttpRequest.Builder get(String ruta) {
+        return HttpRequest.newBuilder(URI.create(base + ruta)).timeout(Duration.ofMinutes(2)).GET();
+    }
+
+    private HttpRequest.Builder post(String ruta, Map<String, String> formulario) {
+        String cuerpo = formulario.entrySet().stream()
+                .map(e -> URLEncoder.encode(e.getKey(), StandardCharsets.UTF_8) + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        return HttpRequest.newBuilder(URI.create(base + ruta))
+                .timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo));
+    }
+
+    private void informar() throws IOException {
+        Map<String, Latencias.Resumen> resumenes = latencias.resumir(config.duracion());
+        StringBuilder tabla = new StringBuilder(Latencias.CABECERA);
+        resumenes.values().forEach(resumen -> tabla.append('\n').append(resumen.fila()));
+        log.info("Resultado de la prueba de carga ({} emails recibidos por el sumidero):\n{}", sumidero.mensajes(), tabla);
+
+        String json = "{\"config\":" + config.json() + ",\"emails\":" + sumidero.mensajes() + ",\"endpoints\":["
+                + resumenes.values().stream().map(Latencias.Resumen::json).collect(Collectors.joining(",")) + "]}";
+        Path salida = config.salida().toAbsolutePath();
+        Files.createDirectories(salida.getParent());
+        Files.writeString(salida, json);
+        log.info("Resultado guardado en {}", salida);
+    }
+}
@@ -0,0 +1,224 @@
+package dev.jotxee.secretsanta.carga;
+
+import jakarta.mail.BodyPart;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Servidor SMTP mínimo que sustituye al relay real durante la prueba de carga. Acepta todo lo que le
+ * llega (sin TLS ni autenticación) y, de cada email, se queda con lo que necesitan los flujos siguientes:
+ * el token del enlace de revelación y las credenciales de los emails de contraseña.
+ */
+class SumideroSmtp implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SumideroSmtp.class);
+
+    private static final Pattern TOKEN = Pattern.compile("[?&]id=([0-9a-fA-F-]{36})");
+    private static final Pattern PASSWORD = Pattern.compile("monospace[^>]*>\\s*([^<\\s]+)\\s*<");
+
+    record Credencial(String email, String password) {}
+
+    private final ServerSocket servidor;
+    private final Session sesion = Session.getInstance(new Properties());
+    /** Solo se añade al final, así que basta con la sincronización de la lista para leer posiciones al azar. */
+    private final List<String> tokens = Collections.synchronizedList(new ArrayList<>());
+    private final List<Credencial> credenciales = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong mensajes = new AtomicLong();
+    private volatile boolean abierto = true;
+
+    SumideroSmtp() throws IOException {
+        this.servidor = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().name("sumidero-smtp").start(this::aceptar);
+    }
+
+    int puerto() {
+        return servidor.getLocalPort();
+    }
+
+    long mensajes() {
+        return mensajes.get();
+    }
+
+    int tokens() {
+        return tokens.size();
+    }
+
+    int credenciales() {
+        return credenciales.size();
+    }
+
+    String tokenAlAzar() {
+        return alAzar(tokens);
+    }
+
+    Credencial credencialAlAzar() {
+        return alAzar(credenciales);
+    }
+
+    private static <T> T alAzar(List<T> lista) {
+        int total = lista.size();
+        return total == 0 ? null : lista.get(ThreadLocalRandom.current().nextInt(total));
+    }
+
+    private void aceptar() {
+        while (abierto) {
+            try {
+                Socket socket = servidor.accept();
+                Thread.ofVirtual().start(() -> atender(socket));
+            } catch (IOException e) {
+                if (abierto) {
+                    log.warn("Error aceptando conexión SMTP", e);
+                }
+            }
+        }
+    }
+
+    private void atender(Socket socket) {
+        try (socket; InputStream in = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+             OutputStream out = socket.getOutputStream()) {
+            responder(out, "220 sumidero ESMTP");
+            List<String> destinatarios = new ArrayList<>();
+            String linea;
+            while ((linea = leerLinea(in)) != null) {
+                String comando = linea.length() >= 4 ? linea.substring(0, 4).toUpperCase() : linea.toUpperCase();
+                switch (comando) {
+                    case "EHLO" -> responder(out, "250-sumidero\r\n250-8BITMIME\r\n250 PIPELINING");
+                    case "HELO", "NOOP" -> responder(out, "250 OK");
+                    case "MAIL" -> {
+                        destinatarios.clear();
+                        responder(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        destinatarios.add(extraerDireccion(linea));
+                        responder(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        responder(out, "354 Fin con <CRLF>.<CRLF>");
+                        procesar(leerDatos(in), List.copyOf(destinatarios));
+                        responder(out, "250 OK");
+                    }
+                    case "RSET" -> {
+                        destinatarios.clear();
+                        responder(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        responder(out, "221 Adiós");
+                        return;
+                    }
+                    default -> responder(out, "502 No implementado");
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Conexión SMTP cerrada: {}", e.getMessage());
+        }
+    }
+
+    private void procesar(byte[] datos, List<String> destinatarios) {
+        mensajes.incrementAndGet();
+        try {
+            String html = texto(new MimeMessage(sesion, new ByteArrayInputStream(datos)));
+            Matcher token = TOKEN.matcher(html);
+            if (token.find()) {
+                tokens.add(token.group(1));
+                return;
+            }
+            Matcher password = PASSWORD.matcher(html);
+            if (password.find() && !destinatarios.isEmpty()) {
+                String email = destinatarios.getFirst();
+                credenciales.add(new Credencial(email, password.group(1)));
+            }
+        } catch (Exception e) {
+            log.warn("No se pudo interpretar un email recibido", e);
+        }
+    }
+
+    private static String texto(Part parte) throws Exception {
+        Object contenido = parte.getContent();
+        if (contenido instanceof String texto) {
+            return texto;
+        }
+        if (contenido instanceof Multipart multipart) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < multipart.getCount(); i++) {
+                BodyPart cuerpo = multipart.getBodyPart(i);
+                sb.append(texto(cuerpo));
+            }
+            return sb.toString();
+        }
+        return "";
+    }
+
+    private static String extraerDireccion(String linea) {
+        int inicio = linea.indexOf('<');
+        int fin = linea.indexOf('>', inicio + 1);
+        return inicio >= 0 && fin > inicio ? linea.substring(inicio + 1, fin) : linea.substring(linea.indexOf(':') + 1).strip();
+    }
+
+    /**
+     * Lee hasta la línea con un solo punto, deshaciendo el dot-stuffing.
+     */
+    private static byte[] leerDatos(InputStream in) throws IOException {
+        ByteArrayOutputStream datos = new ByteArrayOutputStream();
+        String linea;
+        while ((linea = leerLinea(in)) != null && !linea.equals(".")) {
+            if (linea.startsWith("..")) {
+                linea = linea.substring(1);
+            }
+            datos.write(linea.getBytes(StandardCharsets.ISO_8859_1));
+            datos.write('\r');
+            datos.write('\n');
+        }
+        return datos.toByteArray();
+    }
+
+    /**
+     * Línea terminada en CRLF, en ISO-8859-1 para conservar los bytes tal cual (los emails pueden ir en 8 bits).
+     */
+    private static String leerLinea(InputStream in) throws IOException {
+        ByteArrayOutputStream linea = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                byte[] bytes = linea.toByteArray();
+                int longitud = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+                return new String(bytes, 0, longitud, StandardCharsets.ISO_8859_1);
+            }
+            linea.write(b);
+        }
+        return linea.size() > 0 ? linea.toString(StandardCharsets.ISO_8859_1) : null;
+    }
+
+    private static void responder(OutputStream out, String respuesta) throws IOException {
+        out.write((respuesta + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        abierto = false;
+        servidor.close();
+    }
+}
@@ -0,0 +1,30 @@
+package dev.jotxee.secretsanta.asignacion;
+
+/**
+ * Las restricciones del sorteo no admiten ninguna asignación válida.
+ * Extiende {@link IllegalArgumentException} para que se trate como un error de validación del formulario.
+ */
+public class AsignacionImposibleException extends IllegalArgumentException {
+
+    private final int participante;
+
+    public AsignacionImposibleException(int participante) {
+        this("Las restricciones del sorteo no permiten ninguna asignación válida", participante);
+    }
+
+    public AsignacionImposibleException(String mensaje, int participante) {
+        super(mensaje);
+        this.participante = participante;
+    }
+
+    /** Valor de {@link #participante()} cuando el fallo no se debe a un participante concreto. */
+    public static final int NINGUNO = -1;
+
+    /**
+     * Índice del participante para el que no se encontró receptor, o {@link #NINGUNO} si lo que falta es
+     * el ciclo único.
+     */
+    public int participante() {
+        return participante;
+    }
+}
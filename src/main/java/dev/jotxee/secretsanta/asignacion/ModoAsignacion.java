@@ -0,0 +1,23 @@
+package dev.jotxee.secretsanta.asignacion;
+
+/**
+ * Modos de asignación disponibles para un sorteo.
+ */
+public enum ModoAsignacion {
+
+    /** Una única cadena de regalos que recorre a todos los participantes. */
+    CICLO_UNICO(new MotorCicloUnico()),
+
+    /** Cualquier asignación en la que nadie se regale a sí mismo (puede formar varios ciclos). */
+    DESARREGLO(new MotorDesarreglo());
+
+    private final MotorAsignacion motor;
+
+    ModoAsignacion(MotorAsignacion motor) {
+        this.motor = motor;
+    }
+
+    public MotorAsignacion motor() {
+        return motor;
+    }
+}
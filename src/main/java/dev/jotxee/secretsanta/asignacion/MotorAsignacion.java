@@ -0,0 +1,27 @@
+package dev.jotxee.secretsanta.asignacion;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Motor que calcula quién regala a quién en un sorteo.
+ *
+ * Trabaja sobre índices primitivos: la posición {@code i} del array devuelto contiene
+ * el índice del participante al que regala {@code i}. Ningún participante se tiene a sí mismo.
+ */
+public interface MotorAsignacion {
+
+    /**
+     * Genera una asignación aleatoria sin puntos fijos.
+     *
+     * @param participantes número de participantes (mínimo 2)
+     * @param random fuente de aleatoriedad
+     * @return array de tamaño {@code participantes} con el índice asignado a cada uno
+     */
+    int[] asignar(int participantes, RandomGenerator random);
+
+    static void validarParticipantes(int participantes) {
+        if (participantes < 2) {
+            throw new IllegalArgumentException("Se necesitan al menos 2 participantes para asignar amigos invisibles");
+        }
+    }
+}
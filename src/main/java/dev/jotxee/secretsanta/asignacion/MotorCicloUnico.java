@@ -0,0 +1,31 @@
+package dev.jotxee.secretsanta.asignacion;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Genera una única cadena de regalos (A → B → C → ... → A) usando el algoritmo de Sattolo.
+ *
+ * Cada permutación cíclica de n elementos tiene la misma probabilidad, y el coste es
+ * exactamente n - 1 números aleatorios: una sola pasada sin reintentos.
+ */
+public final class MotorCicloUnico implements MotorAsignacion {
+
+    @Override
+    public int[] asignar(int participantes, RandomGenerator random) {
+        MotorAsignacion.validarParticipantes(participantes);
+
+        int[] asignados = new int[participantes];
+        for (int i = 0; i < participantes; i++) {
+            asignados[i] = i;
+        }
+
+        // Sattolo: como Fisher-Yates pero j < i estrictamente, lo que produce un único ciclo
+        for (int i = participantes - 1; i > 0; i--) {
+            int j = random.nextInt(i);
+            int tmp = asignados[i];
+            asignados[i] = asignados[j];
+            asignados[j] = tmp;
+        }
+        return asignados;
+    }
+}
@@ -0,0 +1,90 @@
+package dev.jotxee.secretsanta.asignacion;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Genera un desarreglo (permutación sin puntos fijos) uniformemente aleatorio en una sola pasada.
+ *
+ * Se basa en la recurrencia D(n) = (n-1)·(D(n-1) + D(n-2)): el último participante elige a
+ * otro j al azar y, con probabilidad D(n-2) / (D(n-1) + D(n-2)), forma con él un ciclo de dos;
+ * en caso contrario se inserta en el ciclo de j una vez desarreglados los n-1 restantes.
+ * Las probabilidades se calculan como cocientes en coma flotante, por lo que no hace falta
+ * aritmética de precisión arbitraria ni para sorteos de cientos de miles de participantes.
+ *
+ * Coste garantizado: O(n) tiempo y memoria, dos números aleatorios por participante, sin reintentos.
+ */
+public final class MotorDesarreglo implements MotorAsignacion {
+
+    @Override
+    public int[] asignar(int participantes, RandomGenerator random) {
+        MotorAsignacion.validarParticipantes(participantes);
+
+        double[] probabilidadParejas = probabilidadesParejas(participantes);
+
+        // Primera pasada: decidir para cada participante extraído con quién se empareja.
+        // Las decisiones se aplican después en orden inverso (de los subproblemas pequeños a los grandes).
+        int[] restantes = new int[participantes];
+        for (int i = 0; i < participantes; i++) {
+            restantes[i] = i;
+        }
+        int[] extraidos = new int[participantes];
+        int[] companeros = new int[participantes];
+        boolean[] pareja = new boolean[participantes];
+        int pasos = 0;
+
+        int quedan = participantes;
+        while (quedan > 0) {
+            int tamano = quedan;
+            int actual = restantes[--quedan];
+            int posicion = random.nextInt(quedan);
+            int companero = restantes[posicion];
+
+            extraidos[pasos] = actual;
+            companeros[pasos] = companero;
+            if (random.nextDouble() < probabilidadParejas[tamano]) {
+                // Ciclo de dos: el compañero también sale del subproblema
+                pareja[pasos] = true;
+                restantes[posicion] = restantes[--quedan];
+            }
+            pasos++;
+        }
+
+        // Segunda pasada: construir la permutación manteniendo también su inversa
+        int[] asignados = new int[participantes];
+        int[] inversa = new int[participantes];
+        for (int paso = pasos - 1; paso >= 0; paso--) {
+            int actual = extraidos[paso];
+            int companero = companeros[paso];
+            if (pareja[paso]) {
+                asignados[actual] = companero;
+                asignados[companero] = actual;
+                inversa[actual] = companero;
+                inversa[companero] = actual;
+            } else {
+                // Insertar "actual" justo antes de "companero" en su ciclo
+                int anterior = inversa[companero];
+                asignados[anterior] = actual;
+                inversa[actual] = anterior;
+                asignados[actual] = companero;
+                inversa[companero] = actual;
+            }
+        }
+        return asignados;
+    }
+
+    /**
+     * Para cada tamaño s, probabilidad de que el participante extraído forme un ciclo de dos:
+     * D(s-2) / (D(s-1) + D(s-2)). Se obtiene a partir de r(m) = D(m-1) / D(m), que cumple
+     * r(2) = 0 y r(m) = 1 / ((m-1)·(1 + r(m-1))).
+     */
+    private static double[] probabilidadesParejas(int participantes) {
+        double[] probabilidades = new double[participantes + 1];
+        probabilidades[2] = 1.0;
+        double cociente = 0.0; // r(2)
+        for (int tamano = 3; tamano <= participantes; tamano++) {
+            probabilidades[tamano] = cociente / (1.0 + cociente);
+            cociente = 1.0 / ((tamano - 1) * (1.0 + cociente));
+        }
+        return probabilidades;
+    }
+}
@@ -0,0 +1,162 @@
+package dev.jotxee.secretsanta.asignacion;
+
+import java.util.Arrays;
+
+/**
+ * Restricciones sobre quién puede regalar a quién, expresadas sobre índices de participantes.
+ *
+ * Admite dos tipos de regla:
+ * <ul>
+ *   <li>Grupos (hogar, equipo...): nadie regala a alguien de su mismo grupo.</li>
+ *   <li>Parejas prohibidas dirigidas (dador → receptor): exclusiones explícitas o parejas del año anterior.</li>
+ * </ul>
+ * Las parejas prohibidas se guardan ordenadas por dador para consultarlas con búsqueda binaria.
+ */
+public final class RestriccionesAsignacion {
+
+    private static final int SIN_GRUPO = -1;
+    private static final int[] NINGUNO = new int[0];
+
+    private final int participantes;
+    private final int[] grupos;
+    private final int[][] prohibidos;
+    private final boolean vacia;
+    private final int miembroGrupoInviable;
+
+    private RestriccionesAsignacion(int participantes, int[] grupos, int[][] prohibidos, boolean vacia,
+                                    int miembroGrupoInviable) {
+        this.participantes = participantes;
+        this.grupos = grupos;
+        this.prohibidos = prohibidos;
+        this.vacia = vacia;
+        this.miembroGrupoInviable = miembroGrupoInviable;
+    }
+
+    public static Builder builder(int participantes) {
+        return new Builder(participantes);
+    }
+
+    public static RestriccionesAsignacion ninguna(int participantes) {
+        return builder(participantes).build();
+    }
+
+    public int participantes() {
+        return participantes;
+    }
+
+    /**
+     * Indica si no hay más regla que la de no regalarse a uno mismo.
+     */
+    public boolean sinRestricciones() {
+        return vacia;
+    }
+
+    /**
+     * Un grupo con más de la mitad de los participantes nunca tiene solución: sus miembros necesitan
+     * más receptores fuera del grupo de los que existen.
+     *
+     * @return índice de un miembro de ese grupo, o -1 si ningún grupo es demasiado grande
+     */
+    public int miembroGrupoInviable() {
+        return miembroGrupoInviable;
+    }
+
+    public boolean permitido(int dador, int receptor) {
+        if (dador == receptor) {
+            return false;
+        }
+        int grupo = grupos[dador];
+        if (grupo != SIN_GRUPO && grupo == grupos[receptor]) {
+            return false;
+        }
+        int[] prohibidosDador = prohibidos[dador];
+        return prohibidosDador.length == 0 || Arrays.binarySearch(prohibidosDador, receptor) < 0;
+    }
+
+    public static final class Builder {
+
+        private final int participantes;
+        private final int[] grupos;
+        private long[] parejas = new long[16];
+        private int totalParejas;
+        private boolean conGrupos;
+
+        private Builder(int participantes) {
+            this.participantes = participantes;
+            this.grupos = new int[participantes];
+            Arrays.fill(grupos, SIN_GRUPO);
+        }
+
+        /**
+         * Asigna un participante a un grupo. Los grupos se identifican con enteros no negativos.
+         */
+        public Builder grupo(int participante, int grupo) {
+            if (grupo < 0) {
+                throw new IllegalArgumentException("El identificador de grupo debe ser positivo");
+            }
+            grupos[participante] = grupo;
+            conGrupos = true;
+            return this;
+        }
+
+        /**
+         * Impide que {@code dador} regale a {@code receptor} (la regla inversa no se añade).
+         */
+        public Builder prohibir(int dador, int receptor) {
+            if (totalParejas == parejas.length) {
+                parejas = Arrays.copyOf(parejas, parejas.length * 2);
+            }
+            parejas[totalParejas++] = ((long) dador << 32) | receptor;
+            return this;
+        }
+
+        /**
+         * Impide que dos participantes se regalen entre sí en ambos sentidos.
+         */
+        public Builder excluirPareja(int a, int b) {
+            return prohibir(a, b).prohibir(b, a);
+        }
+
+        public RestriccionesAsignacion build() {
+            long[] ordenadas = Arrays.copyOf(parejas, totalParejas);
+            Arrays.sort(ordenadas);
+
+            int[] porDador = new int[participantes];
+            int unicas = 0;
+            for (int i = 0; i < ordenadas.length; i++) {
+                if (i == 0 || ordenadas[i] != ordenadas[i - 1]) {
+                    ordenadas[unicas++] = ordenadas[i];
+                    porDador[(int) (ordenadas[i] >>> 32)]++;
+                }
+            }
+
+            int[][] prohibidos = new int[participantes][];
+            for (int dador = 0; dador < participantes; dador++) {
+                prohibidos[dador] = porDador[dador] == 0 ? NINGUNO : new int[porDador[dador]];
+                porDador[dador] = 0;
+            }
+            for (int i = 0; i < unicas; i++) {
+                int dador = (int) (ordenadas[i] >>> 32);
+                prohibidos[dador][porDador[dador]++] = (int) ordenadas[i];
+            }
+
+            return new RestriccionesAsignacion(participantes, grupos.clone(), prohibidos, unicas == 0 && !conGrupos,
+                    buscarGrupoInviable());
+        }
+
+        private int buscarGrupoInviable() {
+            if (!conGrupos) {
+                return -1;
+            }
+            int mayorId = Arrays.stream(grupos).max().orElse(SIN_GRUPO);
+            int[] tamanos = new int[mayorId + 1];
+            for (int participante = 0; participante < participantes; participante++) {
+                int grupo = grupos[participante];
+                if (grupo != SIN_GRUPO && ++tamanos[grupo] * 2 > participantes) {
+                    return participante;
+                }
+            }
+            return -1;
+        }
+    }
+}
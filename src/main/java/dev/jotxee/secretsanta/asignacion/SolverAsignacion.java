@@ -0,0 +1,363 @@
+package dev.jotxee.secretsanta.asignacion;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Resuelve asignaciones con restricciones como un emparejamiento perfecto en el grafo bipartito
+ * dador → receptor de parejas permitidas.
+ *
+ * <ol>
+ *   <li>Parte de una asignación aleatoria del motor del modo elegido.</li>
+ *   <li>Descarta las parejas que violan alguna restricción.</li>
+ *   <li>Recoloca a cada dador suelto con un camino aumentante (BFS). El grafo permitido suele ser
+ *       casi completo, así que se recorre su complementario con una lista enlazada de receptores
+ *       no visitados: cada búsqueda cuesta O(n + parejas prohibidas).</li>
+ *   <li>En modo {@link ModoAsignacion#CICLO_UNICO}, une los ciclos resultantes intercambiando destinos y,
+ *       si algún ciclo no se puede unir con un solo intercambio, busca el ciclo con backtracking.</li>
+ * </ol>
+ *
+ * Si una búsqueda de camino aumentante falla no existe ningún emparejamiento perfecto (teorema de Berge),
+ * así que la imposibilidad de una asignación cualquiera se detecta de forma exacta. Para el ciclo único no
+ * hay un criterio así (es un ciclo hamiltoniano): el backtracking tiene un presupuesto de
+ * {@value #PRESUPUESTO_BUSQUEDA} comprobaciones y, si se agota, el sorteo se rechaza porque no se ha
+ * encontrado un ciclo, aunque pudiera existir.
+ */
+@Slf4j
+public final class SolverAsignacion {
+
+    private static final int LIBRE = -1;
+    /** Parejas que puede comprobar como mucho el backtracking del ciclo único (unas decenas de ms). */
+    static final long PRESUPUESTO_BUSQUEDA = 20_000_000L;
+
+    private enum ResultadoBusqueda { ENCONTRADO, NO_EXISTE, AGOTADO }
+
+    private SolverAsignacion() {
+    }
+
+    /**
+     * @return array con el índice al que regala cada participante
+     * @throws AsignacionImposibleException si las restricciones no admiten solución
+     */
+    public static int[] resolver(RestriccionesAsignacion restricciones, ModoAsignacion modo, RandomGenerator random) {
+        if (restricciones.miembroGrupoInviable() >= 0) {
+            throw new AsignacionImposibleException(restricciones.miembroGrupoInviable());
+        }
+        int[] asignados = modo.motor().asignar(restricciones.participantes(), random);
+        if (restricciones.sinRestricciones()) {
+            return asignados;
+        }
+
+        reparar(asignados, restricciones, random);
+        if (modo == ModoAsignacion.CICLO_UNICO) {
+            unirCiclos(asignados, restricciones, random);
+        }
+        return asignados;
+    }
+
+    private static void reparar(int[] asignados, RestriccionesAsignacion restricciones, RandomGenerator random) {
+        int n = asignados.length;
+        int[] dadorDe = new int[n];
+        Arrays.fill(dadorDe, LIBRE);
+
+        int[] sueltos = new int[n];
+        int totalSueltos = 0;
+        for (int dador = 0; dador < n; dador++) {
+            if (restricciones.permitido(dador, asignados[dador])) {
+                dadorDe[asignados[dador]] = dador;
+            } else {
+                asignados[dador] = LIBRE;
+                sueltos[totalSueltos++] = dador;
+            }
+        }
+        if (totalSueltos == 0) {
+            return;
+        }
+
+        barajar(sueltos, totalSueltos, random);
+        BuscadorCaminos buscador = new BuscadorCaminos(asignados, dadorDe, restricciones, random);
+        for (int i = 0; i < totalSueltos; i++) {
+            if (!buscador.aumentar(sueltos[i])) {
+                throw new AsignacionImposibleException(sueltos[i]);
+            }
+        }
+        log.debug("Asignación reparada: {} participantes recolocados", totalSueltos);
+    }
+
+    /**
+     * Fusiona ciclos eligiendo a en el ciclo principal y b en otro: a pasa a regalar a quien regalaba b
+     * y viceversa, lo que une ambos ciclos en uno solo si las dos parejas nuevas están permitidas.
+     *
+     * Los intercambios simples no siempre bastan aunque exista un ciclo único; en ese caso se recurre a
+     * {@link #buscarCiclo}.
+     *
+     * @throws AsignacionImposibleException si no existe ciclo único o no se encuentra dentro del presupuesto
+     */
+    private static void unirCiclos(int[] asignados, RestriccionesAsignacion restricciones, RandomGenerator random) {
+        int n = asignados.length;
+        int[] cicloDe = new int[n];
+        Arrays.fill(cicloDe, LIBRE);
+        int[] inicioCiclo = new int[n];
+        int[] longitudCiclo = new int[n];
+        int totalCiclos = 0;
+        int mayor = 0;
+        for (int i = 0; i < n; i++) {
+            if (cicloDe[i] != LIBRE) {
+                continue;
+            }
+            int actual = i;
+            int longitud = 0;
+            do {
+                cicloDe[actual] = totalCiclos;
+                actual = asignados[actual];
+                longitud++;
+            } while (actual != i);
+            inicioCiclo[totalCiclos] = i;
+            longitudCiclo[totalCiclos] = longitud;
+            if (longitud > longitudCiclo[mayor]) {
+                mayor = totalCiclos;
+            }
+            totalCiclos++;
+        }
+        if (totalCiclos == 1) {
+            return;
+        }
+
+        int[] principal = new int[n];
+        int enPrincipal = miembros(asignados, inicioCiclo[mayor], principal, 0);
+
+        int[] pendientes = new int[totalCiclos - 1];
+        int totalPendientes = 0;
+        for (int ciclo = 0; ciclo < totalCiclos; ciclo++) {
+            if (ciclo != mayor) {
+                pendientes[totalPendientes++] = ciclo;
+            }
+        }
+        barajar(pendientes, totalPendientes, random);
+
+        int[] otro = new int[n];
+        boolean progreso = true;
+        while (totalPendientes > 0 && progreso) {
+            progreso = false;
+            for (int p = 0; p < totalPendientes; p++) {
+                int longitud = miembros(asignados, inicioCiclo[pendientes[p]], otro, 0);
+                if (fusionar(asignados, restricciones, random, principal, enPrincipal, otro, longitud)) {
+                    System.arraycopy(otro, 0, principal, enPrincipal, longitud);
+                    enPrincipal += longitud;
+                    pendientes[p--] = pendientes[--totalPendientes];
+                    progreso = true;
+                }
+            }
+        }
+
+        if (totalPendientes == 0) {
+            return;
+        }
+        log.debug("Quedan {} ciclos que no se unen con un intercambio; se busca el ciclo con backtracking",
+                totalPendientes + 1);
+        switch (buscarCiclo(asignados, restricciones, random)) {
+            case ENCONTRADO -> { }
+            case NO_EXISTE -> throw new AsignacionImposibleException(
+                    "Las restricciones del sorteo no permiten formar un único ciclo", AsignacionImposibleException.NINGUNO);
+            case AGOTADO -> throw new AsignacionImposibleException(
+                    "No se ha encontrado ningún ciclo único con estas restricciones", AsignacionImposibleException.NINGUNO);
+        }
+    }
+
+    /**
+     * Backtracking (en profundidad, iterativo) de un ciclo que pase por todos los participantes, probando los
+     * receptores en orden aleatorio. Si lo encuentra lo escribe en {@code asignados}; si no, no lo toca.
+     */
+    private static ResultadoBusqueda buscarCiclo(int[] asignados, RestriccionesAsignacion restricciones,
+                                                 RandomGenerator random) {
+        int n = asignados.length;
+        int[] orden = new int[n];
+        for (int i = 0; i < n; i++) {
+            orden[i] = i;
+        }
+        barajar(orden, n, random);
+
+        int[] camino = new int[n];
+        int[] siguienteCandidato = new int[n];
+        boolean[] enCamino = new boolean[n];
+        camino[0] = orden[0];
+        enCamino[orden[0]] = true;
+        int profundidad = 1;
+        long comprobaciones = 0;
+
+        while (profundidad > 0) {
+            int actual = camino[profundidad - 1];
+            if (profundidad == n) {
+                if (restricciones.permitido(actual, camino[0])) {
+                    for (int i = 0; i < n; i++) {
+                        asignados[camino[i]] = camino[(i + 1) % n];
+                    }
+                    return ResultadoBusqueda.ENCONTRADO;
+                }
+                enCamino[actual] = false;
+                profundidad--;
+                continue;
+            }
+
+            int elegido = LIBRE;
+            int i = siguienteCandidato[profundidad - 1];
+            while (i < n && elegido == LIBRE) {
+                int candidato = orden[i++];
+                if (!enCamino[candidato] && restricciones.permitido(actual, candidato)) {
+                    elegido = candidato;
+                }
+                if (++comprobaciones > PRESUPUESTO_BUSQUEDA) {
+                    return ResultadoBusqueda.AGOTADO;
+                }
+            }
+            siguienteCandidato[profundidad - 1] = i;
+
+            if (elegido == LIBRE) {
+                enCamino[actual] = false;
+                profundidad--;
+            } else {
+                camino[profundidad] = elegido;
+                enCamino[elegido] = true;
+                siguienteCandidato[profundidad] = 0;
+                profundidad++;
+            }
+        }
+        return ResultadoBusqueda.NO_EXISTE;
+    }
+
+    private static boolean fusionar(int[] asignados, RestriccionesAsignacion restricciones, RandomGenerator random,
+                                    int[] principal, int enPrincipal, int[] otro, int longitud) {
+        int desplazamientoA = random.nextInt(enPrincipal);
+        int desplazamientoB = random.nextInt(longitud);
+        for (int ib = 0; ib < longitud; ib++) {
+            int b = otro[(desplazamientoB + ib) % longitud];
+            for (int ia = 0; ia < enPrincipal; ia++) {
+                int a = principal[(desplazamientoA + ia) % enPrincipal];
+                if (restricciones.permitido(a, asignados[b]) && restricciones.permitido(b, asignados[a])) {
+                    int tmp = asignados[a];
+                    asignados[a] = asignados[b];
+                    asignados[b] = tmp;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int miembros(int[] asignados, int inicio, int[] destino, int desde) {
+        int total = desde;
+        int actual = inicio;
+        do {
+            destino[total++] = actual;
+            actual = asignados[actual];
+        } while (actual != inicio);
+        return total - desde;
+    }
+
+    private static void barajar(int[] valores, int total, RandomGenerator random) {
+        for (int i = total - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = valores[i];
+            valores[i] = valores[j];
+            valores[j] = tmp;
+        }
+    }
+
+    /**
+     * Búsqueda de caminos aumentantes sobre el grafo de parejas permitidas.
+     * Los receptores no visitados forman una lista doblemente enlazada (en orden aleatorio) de la que
+     * se retiran al visitarlos y a la que se reinsertan, en orden inverso, al terminar cada búsqueda.
+     */
+    private static final class BuscadorCaminos {
+
+        private final int[] asignados;
+        private final int[] dadorDe;
+        private final RestriccionesAsignacion restricciones;
+        private final int cabecera;
+        private final int[] siguiente;
+        private final int[] anterior;
+        private final int[] desde;
+        private final int[] cola;
+        private final int[] retirados;
+
+        BuscadorCaminos(int[] asignados, int[] dadorDe, RestriccionesAsignacion restricciones, RandomGenerator random) {
+            int n = asignados.length;
+            this.asignados = asignados;
+            this.dadorDe = dadorDe;
+            this.restricciones = restricciones;
+            this.cabecera = n;
+            this.siguiente = new int[n + 1];
+            this.anterior = new int[n + 1];
+            this.desde = new int[n];
+            this.cola = new int[n + 1];
+            this.retirados = new int[n];
+
+            int[] orden = new int[n];
+            for (int i = 0; i < n; i++) {
+                orden[i] = i;
+            }
+            barajar(orden, n, random);
+            int previo = cabecera;
+            for (int receptor : orden) {
+                siguiente[previo] = receptor;
+                anterior[receptor] = previo;
+                previo = receptor;
+            }
+            siguiente[previo] = cabecera;
+            anterior[cabecera] = previo;
+        }
+
+        boolean aumentar(int raiz) {
+            int totalRetirados = 0;
+            int primero = 0;
+            int ultimo = 0;
+            cola[ultimo++] = raiz;
+            boolean encontrado = false;
+
+            busqueda:
+            while (primero < ultimo) {
+                int dador = cola[primero++];
+                int receptor = siguiente[cabecera];
+                while (receptor != cabecera) {
+                    int proximo = siguiente[receptor];
+                    if (restricciones.permitido(dador, receptor)) {
+                        siguiente[anterior[receptor]] = proximo;
+                        anterior[proximo] = anterior[receptor];
+                        retirados[totalRetirados++] = receptor;
+                        desde[receptor] = dador;
+                        if (dadorDe[receptor] == LIBRE) {
+                            invertirCamino(receptor);
+                            encontrado = true;
+                            break busqueda;
+                        }
+                        cola[ultimo++] = dadorDe[receptor];
+                    }
+                    receptor = proximo;
+                }
+            }
+
+            for (int i = totalRetirados - 1; i >= 0; i--) {
+                int receptor = retirados[i];
+                siguiente[anterior[receptor]] = receptor;
+                anterior[siguiente[receptor]] = receptor;
+            }
+            return encontrado;
+        }
+
+        private void invertirCamino(int receptorLibre) {
+            int receptor = receptorLibre;
+            while (true) {
+                int dador = desde[receptor];
+                int anteriorReceptor = asignados[dador];
+                asignados[dador] = receptor;
+                dadorDe[receptor] = dador;
+                if (anteriorReceptor == LIBRE) {
+                    return;
+                }
+                receptor = anteriorReceptor;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package dev.jotxee.secretsanta.config;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+
+/**
+ * Elige el coste BCrypt según lo que tarda esta máquina. Cada punto de coste duplica el tiempo, así que se
+ * mide desde el mínimo hacia arriba y se para en cuanto el siguiente pasaría del objetivo: en total se
+ * gasta menos del doble del objetivo en medir.
+ */
+final class CalibradorBCrypt {
+
+    private static final String MUESTRA = "calibracion-secret-santa";
+
+    private CalibradorBCrypt() {
+    }
+
+    static int calibrar(Duration objetivo, int costeMinimo, int costeMaximo) {
+        if (costeMinimo < 4 || costeMaximo > 31 || costeMinimo > costeMaximo) {
+            throw new IllegalArgumentException("Rango de coste BCrypt inválido: " + costeMinimo + ".." + costeMaximo);
+        }
+        long objetivoNanos = objetivo.toNanos();
+
+        // Calentamiento para que el JIT no penalice la primera medida
+        medir(Math.max(4, costeMinimo - 2));
+
+        int coste = costeMinimo;
+        long tiempo = medir(coste);
+        while (coste < costeMaximo && tiempo * 2 <= objetivoNanos) {
+            coste++;
+            tiempo = medir(coste);
+        }
+        return coste;
+    }
+
+    /**
+     * Tiempo de un hash al coste dado, que es lo mismo que cuesta verificar una contraseña.
+     */
+    private static long medir(int coste) {
+        String sal = BCrypt.gensalt(coste);
+        long inicio = System.nanoTime();
+        BCrypt.hashpw(MUESTRA, sal);
+        return System.nanoTime() - inicio;
+    }
+}
@@ -2,6 +2,7 @@ package dev.jotxee.secretsanta.config;
 
 import javax.sql.DataSource;
 
+import dev.jotxee.secretsanta.util.EmailCryptoService;
 import org.flywaydb.core.Flyway;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -29,7 +30,7 @@ public class FlywayConfiguration {
      */
     @Bean
     @Primary
-    public Flyway flyway(DataSource dataSource) {
+    public Flyway flyway(DataSource dataSource, EmailCryptoService emailCryptoService) {
         log.info("═══════════════════════════════════════════════════════");
         log.info("🔧 CONFIGURANDO FLYWAY MANUALMENTE");
         log.info("═══════════════════════════════════════════════════════");
@@ -40,6 +41,8 @@ public class FlywayConfiguration {
                 .baselineOnMigrate(true)
                 .baselineVersion("1")
                 .validateOnMigrate(true)
+                // Migraciones en Java que necesitan beans de la aplicación (p. ej. la clave de cifrado)
+                .javaMigrations(new V8__RellenarAsignadoPerfil(emailCryptoService))
                 .load();
         
         log.info("📍 Locations: {}", (Object[]) flyway.getConfiguration().getLocations());
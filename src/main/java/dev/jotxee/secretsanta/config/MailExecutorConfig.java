@@ -0,0 +1,74 @@
+package dev.jotxee.secretsanta.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor exclusivo para el envío de emails ({@code @Async("mailExecutor")} y lotes de {@code MailDispatcher}).
+ *
+ * Cada hilo mantiene como mucho una conexión SMTP, así que el número de hilos es también el de conexiones
+ * simultáneas con el relay. La cola es acotada y sin política de rechazo alternativa: si se llena,
+ * {@code execute} lanza {@code TaskRejectedException} y el llamante decide (la bandeja de salida lo
+ * reintentará). Al parar la aplicación se terminan los envíos en curso y los encolados.
+ *
+ * Spring Boot publica además las métricas estándar {@code executor.*} con {@code name=mailExecutor}.
+ * Al ser un {@code Executor} propio, el {@code applicationTaskExecutor} de Boot (MVC async, {@code @Async}
+ * sin nombre) solo se crea gracias a {@code spring.task.execution.mode=force}.
+ */
+@Configuration
+public class MailExecutorConfig {
+
+    public static final String MAIL_EXECUTOR = "mailExecutor";
+
+    @Bean(name = MAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor mailExecutor(MeterRegistry meterRegistry,
+                                               @Value("${app.mail.executor.hilos:2}") int hilos,
+                                               @Value("${app.mail.executor.capacidad-cola:100}") int capacidadCola,
+                                               @Value("${app.mail.executor.espera-cierre:60}") int segundosEsperaCierre) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(capacidadCola);
+        executor.setThreadNamePrefix("mail-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(segundosEsperaCierre);
+        executor.setTaskDecorator(medirEsperaEnCola(meterRegistry));
+
+        Gauge.builder("secretsanta.mail.executor.cola", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Tareas de envío esperando hilo")
+                .register(meterRegistry);
+        Gauge.builder("secretsanta.mail.executor.activos", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Hilos de envío ocupados")
+                .register(meterRegistry);
+        return executor;
+    }
+
+    private static TaskDecorator medirEsperaEnCola(MeterRegistry meterRegistry) {
+        Timer espera = Timer.builder("secretsanta.mail.executor.espera")
+                .description("Tiempo que una tarea de envío pasa en cola antes de empezar")
+                .register(meterRegistry);
+        Timer ejecucion = Timer.builder("secretsanta.mail.executor.ejecucion")
+                .description("Duración de cada tarea de envío")
+                .register(meterRegistry);
+        return tarea -> {
+            long encolada = System.nanoTime();
+            return () -> {
+                long inicio = System.nanoTime();
+                espera.record(inicio - encolada, TimeUnit.NANOSECONDS);
+                try {
+                    tarea.run();
+                } finally {
+                    ejecucion.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                }
+            };
+        };
+    }
+}
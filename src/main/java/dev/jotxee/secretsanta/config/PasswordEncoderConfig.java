@@ -1,16 +1,48 @@
 package dev.jotxee.secretsanta.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Los hashes nuevos se guardan como {@code {bcrypt}$2a$<coste>$...}. Los antiguos, sin prefijo, se siguen
+ * validando con BCrypt; en el siguiente login correcto se rehashean con el algoritmo y coste actuales
+ * (ver {@code ParticipanteUserDetailsService#updatePassword}).
+ *
+ * El coste sale de {@code app.password-hashing.coste} o, si se activa la calibración, del mayor coste que
+ * verifica una contraseña en menos de {@code app.password-hashing.calibrar.objetivo} en esta máquina.
+ */
+@Slf4j
 @Configuration
 public class PasswordEncoderConfig {
 
+    static final String ID_BCRYPT = "bcrypt";
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.password-hashing.coste:10}") int coste,
+                                           @Value("${app.password-hashing.calibrar.enabled:false}") boolean calibrar,
+                                           @Value("${app.password-hashing.calibrar.objetivo:PT0.25S}") Duration objetivo,
+                                           @Value("${app.password-hashing.calibrar.coste-maximo:16}") int costeMaximo) {
+        int costeEfectivo = coste;
+        if (calibrar) {
+            costeEfectivo = CalibradorBCrypt.calibrar(objetivo, coste, costeMaximo);
+            log.info("🔐 Coste BCrypt calibrado: {} (objetivo {} ms por verificación, mínimo {})",
+                    costeEfectivo, objetivo.toMillis(), coste);
+        } else {
+            log.info("🔐 Coste BCrypt configurado: {}", costeEfectivo);
+        }
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(costeEfectivo);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(ID_BCRYPT, Map.of(ID_BCRYPT, bcrypt));
+        // Hashes anteriores sin prefijo: BCrypt lee el coste del propio hash, así que valida cualquiera
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 }
-
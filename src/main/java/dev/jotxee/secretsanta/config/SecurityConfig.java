@@ -1,7 +1,13 @@
 package dev.jotxee.secretsanta.config;
 
+import dev.jotxee.secretsanta.repository.UsuarioRepository;
+import dev.jotxee.secretsanta.security.LimitadorLogin;
+import dev.jotxee.secretsanta.security.LimiteLoginFilter;
 import dev.jotxee.secretsanta.security.ParticipanteUserDetails;
 import dev.jotxee.secretsanta.security.ParticipanteUserDetailsService;
+import dev.jotxee.secretsanta.security.RefrescoIdentidad;
+import dev.jotxee.secretsanta.security.RefrescoIdentidadFilter;
+import dev.jotxee.secretsanta.security.VerificacionLimitadaProvider;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -13,7 +19,10 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.security.web.util.matcher.RequestMatcher;
 
 import java.util.List;
@@ -28,6 +37,9 @@ public class SecurityConfig {
     private final ParticipanteUserDetailsService participanteUserDetailsService;
     private final PasswordEncoder passwordEncoder;
     private final CustomAuthEntryPoint customAuthEntryPoint;
+    private final RefrescoIdentidad refrescoIdentidad;
+    private final UsuarioRepository usuarioRepository;
+    private final LimitadorLogin limitadorLogin;
 
     @Value("${admin.username:admin}")
     private String adminUsername;
@@ -39,14 +51,17 @@ public class SecurityConfig {
     public DaoAuthenticationProvider participanteAuthenticationProvider() {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider(participanteUserDetailsService);
         provider.setPasswordEncoder(passwordEncoder);
+        // Rehashea al hacer login las contraseñas con un algoritmo o coste anterior al configurado
+        provider.setUserDetailsPasswordService(participanteUserDetailsService);
         return provider;
     }
 
     @Bean
     public AuthenticationManager authenticationManager() {
-        // AuthenticationManager con un único provider que gestiona tanto admins como users desde BD
+        // AuthenticationManager con un único provider que gestiona tanto admins como users desde BD,
+        // con un tope de comprobaciones BCrypt simultáneas
         return new ProviderManager(List.of(
-            participanteAuthenticationProvider()
+            new VerificacionLimitadaProvider(participanteAuthenticationProvider(), limitadorLogin)
         ));
     }
 
@@ -61,6 +76,7 @@ public class SecurityConfig {
                 ).permitAll()
                 .requestMatchers("/create/**", "/api/**").hasRole("ADMIN")
                 .requestMatchers("/my-profile/**").hasRole("USER")
+                .requestMatchers("/actuator/sql").hasRole("ADMIN")
                 .anyRequest().permitAll()
             )
             // Login por formulario con redirección condicional
@@ -70,9 +86,10 @@ public class SecurityConfig {
                 .successHandler((request, response, authentication) -> {
                     // Get the user's name instead of email for logging
                     String userName = authentication.getPrincipal() instanceof ParticipanteUserDetails userDetails
-                            ? userDetails.getUsuario().getNombre()
+                            ? userDetails.getIdentidad().nombre()
                             : "usuario";
                     log.info("Login exitoso para: {}", userName);
+                    limitadorLogin.exito(request.getRemoteAddr(), request.getParameter("username"));
                     if (authentication.getAuthorities().stream()
                             .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
                         response.sendRedirect("/create");
@@ -82,6 +99,11 @@ public class SecurityConfig {
                 })
                 .failureHandler(authenticationFailureHandler())
             )
+            // Limita los intentos de login por IP y usuario antes de calcular ningún hash
+            .addFilterBefore(new LimiteLoginFilter(limitadorLogin), UsernamePasswordAuthenticationFilter.class)
+            // Recarga la identidad de la sesión si los datos del usuario han cambiado desde el login
+            .addFilterBefore(new RefrescoIdentidadFilter(refrescoIdentidad, usuarioRepository,
+                    new HttpSessionSecurityContextRepository()), AuthorizationFilter.class)
             // Logout sencillo
             .logout(logout -> logout
                 .logoutUrl("/logout")
@@ -111,6 +133,11 @@ public class SecurityConfig {
         return (request, response, exception) -> {
             String username = request.getParameter("username");
             String ip = request.getRemoteAddr();
+            if (exception instanceof VerificacionLimitadaProvider.LoginSaturadoException) {
+                log.warn("Login rechazado por saturación para usuario: {} desde IP: {}", username, ip);
+                response.sendRedirect("/login?ocupado");
+                return;
+            }
             log.warn("Intento fallido de login para usuario: {} desde IP: {}", username, ip);
             response.sendRedirect("/login?error");
         };
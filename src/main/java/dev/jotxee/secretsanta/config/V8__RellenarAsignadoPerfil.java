@@ -0,0 +1,106 @@
+package dev.jotxee.secretsanta.config;
+
+import dev.jotxee.secretsanta.util.EmailCryptoService;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rellena {@code perfil_sorteo.asignado_perfil_id} (columna creada en V7) a partir del email cifrado de
+ * {@code asignado_a}. Se hace en Java porque hay que descifrar: el SQL no tiene la clave.
+ *
+ * Recorre los perfiles ordenados por sorteo; para cada sorteo descifra una vez los emails de sus
+ * participantes y enlaza cada perfil con el del participante cuyo email coincide.
+ */
+@Slf4j
+class V8__RellenarAsignadoPerfil extends BaseJavaMigration {
+
+    private static final int TAMANO_LOTE = 500;
+
+    private final EmailCryptoService emailCryptoService;
+
+    V8__RellenarAsignadoPerfil(EmailCryptoService emailCryptoService) {
+        this.emailCryptoService = emailCryptoService;
+    }
+
+    private record Fila(long id, String email, String asignadoA) {}
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        Recuento recuento = new Recuento();
+
+        try (PreparedStatement select = connection.prepareStatement("""
+                SELECT p.id, p.sorteo_id, p.asignado_a, u.email
+                FROM perfil_sorteo p JOIN usuarios u ON u.id = p.usuario_id
+                ORDER BY p.sorteo_id, p.id
+                """);
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE perfil_sorteo SET asignado_perfil_id = ? WHERE id = ?")) {
+            select.setFetchSize(TAMANO_LOTE);
+
+            long sorteoActual = -1;
+            List<Fila> filas = new ArrayList<>();
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    long sorteoId = rs.getLong("sorteo_id");
+                    if (sorteoId != sorteoActual) {
+                        enlazar(filas, update, recuento);
+                        filas.clear();
+                        sorteoActual = sorteoId;
+                    }
+                    filas.add(new Fila(rs.getLong("id"), rs.getString("email"), rs.getString("asignado_a")));
+                }
+            }
+            enlazar(filas, update, recuento);
+            update.executeBatch();
+        }
+
+        log.info("V8: {} asignaciones enlazadas con su perfil, {} sin receptor reconocible",
+                recuento.enlazadas, recuento.sinReceptor);
+    }
+
+    private static final class Recuento {
+        int enlazadas;
+        int sinReceptor;
+        int enBatch;
+    }
+
+    /**
+     * Añade al batch las asignaciones de un sorteo y lo envía cuando acumula un lote.
+     */
+    private void enlazar(List<Fila> filas, PreparedStatement update, Recuento recuento) throws SQLException {
+        Map<String, Long> perfilPorEmail = new HashMap<>();
+        for (Fila fila : filas) {
+            perfilPorEmail.put(emailCryptoService.decrypt(fila.email()).toLowerCase(), fila.id());
+        }
+
+        for (Fila fila : filas) {
+            if (fila.asignadoA() == null) {
+                continue;
+            }
+            Long receptor = perfilPorEmail.get(emailCryptoService.decrypt(fila.asignadoA()).toLowerCase());
+            if (receptor == null) {
+                recuento.sinReceptor++;
+                continue;
+            }
+            update.setLong(1, receptor);
+            update.setLong(2, fila.id());
+            update.addBatch();
+            recuento.enlazadas++;
+            if (++recuento.enBatch >= TAMANO_LOTE) {
+                update.executeBatch();
+                recuento.enBatch = 0;
+            }
+        }
+    }
+}
@@ -2,11 +2,18 @@ package dev.jotxee.secretsanta.controller;
 
 import dev.jotxee.secretsanta.dto.RevealResponse;
 import dev.jotxee.secretsanta.entity.Usuario;
+import dev.jotxee.secretsanta.repository.PerfilSorteoRepository;
 import dev.jotxee.secretsanta.repository.UsuarioRepository;
+import dev.jotxee.secretsanta.security.RefrescoIdentidad;
+import dev.jotxee.secretsanta.service.EnvioEmailsSaturadoException;
+import dev.jotxee.secretsanta.service.RevealCache;
 import dev.jotxee.secretsanta.service.SecretSantaService;
+import dev.jotxee.secretsanta.util.EmailCryptoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,6 +27,10 @@ public class ApiController {
     
     private final SecretSantaService secretSantaService;
     private final UsuarioRepository usuarioRepository;
+    private final PerfilSorteoRepository perfilSorteoRepository;
+    private final RevealCache revealCache;
+    private final RefrescoIdentidad refrescoIdentidad;
+    private final EmailCryptoService emailCryptoService;
     
     @GetMapping("/reveal")
     public ResponseEntity<RevealResponse> reveal(@RequestParam String token) {
@@ -37,6 +48,11 @@ public class ApiController {
         try {
             secretSantaService.reenviarEmailParticipante(id);
             return ResponseEntity.ok().build();
+        } catch (EnvioEmailsSaturadoException e) {
+            log.warn("Reenvío rechazado para participante {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "60")
+                .build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -56,6 +72,13 @@ public class ApiController {
             
             usuario.setEmail(newEmail);
             usuarioRepository.save(usuario);
+            refrescoIdentidad.marcar(id);
+
+            // El email interviene en las revelaciones de todos los sorteos en los que participa
+            perfilSorteoRepository.findByUsuarioId(id).stream()
+                .map(perfil -> perfil.getSorteo().getId())
+                .distinct()
+                .forEach(revealCache::invalidarSorteo);
             
             return ResponseEntity.ok().build();
         } catch (Exception e) {
@@ -66,9 +89,7 @@ public class ApiController {
     @GetMapping("/decrypt-email")
     public ResponseEntity<String> decryptEmail(@RequestParam String value) {
         try {
-            String decrypted = new dev.jotxee.secretsanta.util.EmailCryptoService(
-                dev.jotxee.secretsanta.entity.EmailEncryptConverter.staticKey
-            ).decrypt(value);
+            String decrypted = emailCryptoService.decrypt(value);
             return ResponseEntity.ok(decrypted);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("No se pudo desencriptar: " + e.getMessage());
@@ -1,20 +1,31 @@
 package dev.jotxee.secretsanta.controller;
 
+import dev.jotxee.secretsanta.dto.PaginaParticipantes;
+import dev.jotxee.secretsanta.dto.ParticipanteResumen;
 import dev.jotxee.secretsanta.dto.SorteoFormDTO;
+import dev.jotxee.secretsanta.dto.SorteoResumen;
 import dev.jotxee.secretsanta.entity.Sorteo;
 import dev.jotxee.secretsanta.repository.PerfilSorteoRepository;
 import dev.jotxee.secretsanta.repository.SorteoRepository;
+import dev.jotxee.secretsanta.service.EmailOutboxService;
+import dev.jotxee.secretsanta.service.RevealCache;
 import dev.jotxee.secretsanta.service.SorteoService;
 import dev.jotxee.secretsanta.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
@@ -28,11 +39,46 @@ public class CreateController {
     private final SorteoService sorteoService;
     private final PerfilSorteoRepository perfilSorteoRepository;
     private final UsuarioService usuarioService;
+    private final EmailOutboxService emailOutboxService;
+    private final RevealCache revealCache;
 
+    @Value("${app.admin.sorteos-por-pagina:20}")
+    private int sorteosPorPagina;
+
+    @Value("${app.admin.sorteos-anteriores:100}")
+    private int sorteosAnteriores;
+
+    @Value("${app.admin.participantes-por-pagina:50}")
+    private int participantesPorPagina;
+
+    @Value("${app.sorteo.max-participantes:5000}")
+    private int maxParticipantes;
+
+    /**
+     * Por defecto el binder no crea listas de más de 256 elementos: {@code participantes[256]} fallaría.
+     */
+    @InitBinder
+    void permitirSorteosGrandes(WebDataBinder binder) {
+        binder.setAutoGrowCollectionLimit(maxParticipantes);
+    }
+
+    /**
+     * Panel de administración. Los sorteos se listan por páginas (cursor {@code antesDe}) y solo con su
+     * resumen; los participantes de cada uno se piden aparte con {@link #participantes}.
+     */
     @GetMapping("/create")
-    public String showCreatePage(Model model) {
-        List<Sorteo> sorteos = sorteoRepository.findByActivoTrue();
+    public String showCreatePage(@RequestParam(required = false) Long antesDe, Model model) {
+        // Se pide uno de más para saber si hay otra página sin hacer un COUNT
+        List<SorteoResumen> sorteos = sorteoRepository.findResumenesActivos(
+            antesDe != null ? antesDe : Long.MAX_VALUE, Limit.of(sorteosPorPagina + 1));
+        Long siguiente = null;
+        if (sorteos.size() > sorteosPorPagina) {
+            sorteos = sorteos.subList(0, sorteosPorPagina);
+            siguiente = sorteos.getLast().id();
+        }
         model.addAttribute("sorteos", sorteos);
+        model.addAttribute("siguiente", siguiente);
+        model.addAttribute("sorteosAnteriores", sorteoRepository.findOpcionesActivas(Limit.of(sorteosAnteriores)));
         
         // Los mensajes flash se añaden automáticamente al modelo por Spring
         // pero necesitamos asegurarnos de que existan como atributos
@@ -57,9 +103,12 @@ public class CreateController {
             // Delegar toda la lógica al servicio
             Sorteo sorteo = sorteoService.crearSorteo(sorteoForm);
 
-            redirectAttributes.addFlashAttribute("success", 
-                "¡Sorteo creado exitosamente! Se han asignado los amigos invisibles a " + 
-                sorteo.getPerfiles().size() + " participantes.");
+            String mensaje = "¡Sorteo creado exitosamente! Se han asignado los amigos invisibles a " +
+                sorteo.getPerfiles().size() + " participantes.";
+            if (emailOutboxService.hayRetraso()) {
+                mensaje += " Hay muchos envíos en cola: los emails pueden tardar en llegar.";
+            }
+            redirectAttributes.addFlashAttribute("success", mensaje);
             
             return "redirect:/create";
 
@@ -75,6 +124,22 @@ public class CreateController {
         }
     }
 
+    /**
+     * Participantes de un sorteo por páginas, para desplegarlos bajo demanda en el panel.
+     */
+    @GetMapping("/create/sorteo/{id}/participantes")
+    @ResponseBody
+    public PaginaParticipantes participantes(@PathVariable Long id, @RequestParam(defaultValue = "0") Long desde) {
+        List<ParticipanteResumen> participantes = perfilSorteoRepository.findParticipantes(
+            id, desde, Limit.of(participantesPorPagina + 1));
+        Long siguiente = null;
+        if (participantes.size() > participantesPorPagina) {
+            participantes = participantes.subList(0, participantesPorPagina);
+            siguiente = participantes.getLast().perfilId();
+        }
+        return new PaginaParticipantes(participantes, siguiente);
+    }
+
     /**
      * Elimina un sorteo y todos sus participantes
      */
@@ -94,6 +159,7 @@ public class CreateController {
             
             // El cascade=ALL y orphanRemoval=true se encargan de eliminar participantes
             sorteoRepository.delete(sorteo);
+            revealCache.invalidarSorteo(id);
             
             log.info("Sorteo eliminado: {} (ID: {})", nombreSorteo, id);
             
@@ -8,8 +8,15 @@ import org.springframework.web.bind.annotation.RequestParam;
 @Controller
 public class LoginController {
     @GetMapping("/login")
-    public String login(@RequestParam(value = "error", required = false) String error, Model model) {
+    public String login(@RequestParam(value = "error", required = false) String error,
+                        @RequestParam(value = "bloqueado", required = false) String bloqueado,
+                        @RequestParam(value = "ocupado", required = false) String ocupado,
+                        Model model) {
         model.addAttribute("error", error != null ? "1" : null);
+        model.addAttribute("bloqueado", bloqueado != null ? "1" : null);
+        // Segundos de espera que indica LimiteLoginFilter; cualquier otro valor se ignora
+        model.addAttribute("esperaSegundos", bloqueado != null && bloqueado.matches("\\d{1,5}") ? bloqueado : null);
+        model.addAttribute("ocupado", ocupado != null ? "1" : null);
         return "login";
     }
 }
@@ -1,16 +1,20 @@
 package dev.jotxee.secretsanta.controller;
 
+import dev.jotxee.secretsanta.dto.MiPerfilVista;
+import dev.jotxee.secretsanta.dto.PerfilVista;
 import dev.jotxee.secretsanta.entity.PerfilSorteo;
-import dev.jotxee.secretsanta.entity.Sorteo;
-import dev.jotxee.secretsanta.entity.Usuario;
-import dev.jotxee.secretsanta.security.ParticipanteUserDetails;
+import dev.jotxee.secretsanta.security.UsuarioActual;
+import dev.jotxee.secretsanta.service.MiPerfilQueryService;
 import dev.jotxee.secretsanta.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
@@ -21,19 +25,17 @@ import java.util.List;
 @Slf4j
 public class MyProfileController {
 
+    private static final int MAX_PERFILES_POR_PAGINA = 500;
+
     private final UsuarioService usuarioService;
+    private final MiPerfilQueryService miPerfilQueryService;
 
     @GetMapping
-    public String showMyProfile(@AuthenticationPrincipal ParticipanteUserDetails userDetails, Model model) {
-        // Obtener usuario y sus perfiles
-        Usuario usuario = usuarioService.obtenerPorEmail(userDetails.getUsername());
-        List<PerfilSorteo> perfiles = usuarioService.obtenerPerfilesDelUsuario(usuario.getId());
-        List<Sorteo> sorteos = usuarioService.obtenerSorteosDelUsuario(usuario.getId());
+    public String showMyProfile(@AuthenticationPrincipal(expression = "identidad") UsuarioActual yo, Model model) {
+        MiPerfilVista vista = miPerfilQueryService.obtener(yo);
 
-        model.addAttribute("usuario", usuario);
-        model.addAttribute("perfiles", perfiles);
-        model.addAttribute("sorteos", sorteos);
-        model.addAttribute("viendoUsuario", usuario); // Por defecto vemos nuestro perfil
+        model.addAttribute("vista", vista);
+        model.addAttribute("viendoUsuarioId", vista.usuarioId()); // Por defecto vemos nuestro perfil
 
         return "my-profile";
     }
@@ -41,44 +43,22 @@ public class MyProfileController {
     @GetMapping("/usuario/{id}")
     public String verUsuario(
             @PathVariable Long id,
-            @AuthenticationPrincipal ParticipanteUserDetails userDetails,
+            @AuthenticationPrincipal(expression = "identidad") UsuarioActual yo,
             Model model,
             RedirectAttributes redirectAttributes) {
 
         try {
-            Usuario miUsuario = usuarioService.obtenerPorEmail(userDetails.getUsername());
-            Usuario usuarioAVer = usuarioService.obtenerPorId(id);
-
-            // OPTIMIZACIÓN: Consulta directa de sorteos compartidos en lugar de múltiples consultas
-            List<Sorteo> sorteosCompartidos = usuarioService.obtenerSorteosCompartidos(
-                miUsuario.getId(), 
-                usuarioAVer.getId()
-            );
+            MiPerfilVista vista = miPerfilQueryService.obtener(yo);
 
-            if (sorteosCompartidos.isEmpty()) {
+            // La vista solo contiene mis sorteos: los perfiles del otro usuario que aparecen son los compartidos
+            List<PerfilVista> perfilesCompartidos = vista.perfilesDe(id);
+            if (perfilesCompartidos.isEmpty()) {
                 throw new SecurityException("No tienes permiso para ver este perfil");
             }
 
-            // Obtener los IDs de los sorteos compartidos para filtrar perfiles
-            List<Long> sorteosCompartidosIds = sorteosCompartidos.stream()
-                .map(Sorteo::getId)
-                .toList();
-
-            List<PerfilSorteo> misPerfiles = usuarioService.obtenerPerfilesDelUsuario(miUsuario.getId());
-            List<PerfilSorteo> todosLosPerfilesDelUsuarioAVer = usuarioService.obtenerPerfilesDelUsuario(usuarioAVer.getId());
-            
-            // FILTRAR: Solo mostrar los perfiles de los sorteos compartidos
-            List<PerfilSorteo> perfilesCompartidos = todosLosPerfilesDelUsuarioAVer.stream()
-                .filter(perfil -> sorteosCompartidosIds.contains(perfil.getSorteo().getId()))
-                .toList();
-
-            // Usar los sorteos del usuario actual para el menú
-            List<Sorteo> misSorteos = usuarioService.obtenerSorteosDelUsuario(miUsuario.getId());
-
-            model.addAttribute("usuario", miUsuario);
-            model.addAttribute("perfiles", misPerfiles);
-            model.addAttribute("sorteos", misSorteos);
-            model.addAttribute("viendoUsuario", usuarioAVer);
+            model.addAttribute("vista", vista);
+            model.addAttribute("viendoUsuarioId", id);
+            model.addAttribute("viendoNombre", perfilesCompartidos.getFirst().nombre());
             model.addAttribute("viendoPerfiles", perfilesCompartidos);
 
             return "my-profile";
@@ -92,7 +72,7 @@ public class MyProfileController {
 
     @PostMapping("/actualizar-tallas")
     public String actualizarTallas(
-            @AuthenticationPrincipal ParticipanteUserDetails userDetails,
+            @AuthenticationPrincipal(expression = "identidad") UsuarioActual yo,
             @RequestParam Long perfilId,
             @RequestParam(required = false) String tallaCamisa,
             @RequestParam(required = false) String tallaPantalon,
@@ -102,11 +82,10 @@ public class MyProfileController {
             RedirectAttributes redirectAttributes) {
 
         try {
-            Usuario usuario = usuarioService.obtenerPorEmail(userDetails.getUsername());
             PerfilSorteo perfil = usuarioService.obtenerPerfilPorId(perfilId);
 
             // Verificar que el perfil pertenece al usuario autenticado
-            if (!perfil.getUsuario().getId().equals(usuario.getId())) {
+            if (!perfil.getUsuario().getId().equals(yo.id())) {
                 throw new SecurityException("No puedes modificar este perfil");
             }
 
@@ -120,7 +99,7 @@ public class MyProfileController {
             );
 
             redirectAttributes.addFlashAttribute("success", "Tallas actualizadas correctamente");
-            log.info("Tallas actualizadas para perfil: {} del usuario: {}", perfilId, usuario.getNombre());
+            log.info("Tallas actualizadas para perfil: {} del usuario: {}", perfilId, yo.nombre());
 
         } catch (SecurityException e) {
             log.warn("Intento de modificación no autorizado: {}", e.getMessage());
@@ -133,23 +112,24 @@ public class MyProfileController {
         return "redirect:/my-profile";
     }
 
-    @GetMapping("/sorteo/{sorteoId}/perfiles")
-    @ResponseBody
-    public List<PerfilSorteo> obtenerPerfilesSorteo(
+    /**
+     * Participantes de un sorteo en el que está el usuario, por páginas y escritos en streaming
+     * (ver {@link MiPerfilQueryService#escribirPerfilesSorteo}).
+     */
+    @GetMapping(value = "/sorteo/{sorteoId}/perfiles", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> obtenerPerfilesSorteo(
             @PathVariable Long sorteoId,
-            @AuthenticationPrincipal ParticipanteUserDetails userDetails) {
+            @RequestParam(defaultValue = "0") long desde,
+            @RequestParam(defaultValue = "100") int limite,
+            @AuthenticationPrincipal(expression = "identidad") UsuarioActual yo) {
 
-        Usuario usuario = usuarioService.obtenerPorEmail(userDetails.getUsername());
-        
         // Verificar que el usuario participa en este sorteo
-        List<Sorteo> misSorteos = usuarioService.obtenerSorteosDelUsuario(usuario.getId());
-        boolean participaEnSorteo = misSorteos.stream().anyMatch(s -> s.getId().equals(sorteoId));
-        
-        if (!participaEnSorteo) {
+        if (!miPerfilQueryService.participa(yo.id(), sorteoId)) {
             throw new SecurityException("No tienes permiso para ver este sorteo");
         }
 
-        return usuarioService.obtenerPerfilesPorSorteo(sorteoId);
+        int tamanoPagina = Math.clamp(limite, 1, MAX_PERFILES_POR_PAGINA);
+        StreamingResponseBody cuerpo = salida -> miPerfilQueryService.escribirPerfilesSorteo(sorteoId, desde, tamanoPagina, salida);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(cuerpo);
     }
 }
-
@@ -0,0 +1,80 @@
+package dev.jotxee.secretsanta.dataset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Distribución de tamaños de sorteo por tramos con peso, p. ej. {@code "3-10:60,11-50:35,51-500:5"}:
+ * se elige un tramo en proporción a su peso y, dentro de él, un tamaño uniforme.
+ * Un tramo de un solo valor se escribe sin guion ({@code "2:10"}).
+ */
+public final class DistribucionTamanos {
+
+    private record Tramo(int minimo, int maximo, double pesoAcumulado) {}
+
+    private final List<Tramo> tramos;
+    private final double pesoTotal;
+
+    private DistribucionTamanos(List<Tramo> tramos, double pesoTotal) {
+        this.tramos = tramos;
+        this.pesoTotal = pesoTotal;
+    }
+
+    public static DistribucionTamanos parse(String especificacion) {
+        if (especificacion == null || especificacion.isBlank()) {
+            throw new IllegalArgumentException("La distribución de tamaños no puede estar vacía");
+        }
+        List<Tramo> tramos = new ArrayList<>();
+        double acumulado = 0;
+        for (String parte : especificacion.split(",")) {
+            String[] rangoYPeso = parte.strip().split(":");
+            if (rangoYPeso.length != 2) {
+                throw new IllegalArgumentException("Tramo sin peso en la distribución: '" + parte.strip() + "'");
+            }
+            String[] limites = rangoYPeso[0].strip().split("-");
+            try {
+                int minimo = Integer.parseInt(limites[0].strip());
+                int maximo = limites.length > 1 ? Integer.parseInt(limites[1].strip()) : minimo;
+                double peso = Double.parseDouble(rangoYPeso[1].strip());
+                if (limites.length > 2 || minimo < 2 || maximo < minimo || peso <= 0) {
+                    throw new IllegalArgumentException("Tramo no válido en la distribución: '" + parte.strip()
+                            + "' (los sorteos necesitan al menos 2 participantes y el peso debe ser positivo)");
+                }
+                acumulado += peso;
+                tramos.add(new Tramo(minimo, maximo, acumulado));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Tramo no válido en la distribución: '" + parte.strip() + "'", e);
+            }
+        }
+        return new DistribucionTamanos(List.copyOf(tramos), acumulado);
+    }
+
+    public int muestrear(RandomGenerator random) {
+        double valor = random.nextDouble(pesoTotal);
+        for (Tramo tramo : tramos) {
+            if (valor < tramo.pesoAcumulado()) {
+                return random.nextInt(tramo.minimo(), tramo.maximo() + 1);
+            }
+        }
+        Tramo ultimo = tramos.getLast();
+        return random.nextInt(ultimo.minimo(), ultimo.maximo() + 1);
+    }
+
+    public int maximo() {
+        return tramos.stream().mapToInt(Tramo::maximo).max().orElseThrow();
+    }
+
+    /**
+     * Tamaño medio esperado, para estimar cuántos perfiles se van a generar.
+     */
+    public double media() {
+        double media = 0;
+        double anterior = 0;
+        for (Tramo tramo : tramos) {
+            media += (tramo.pesoAcumulado() - anterior) * (tramo.minimo() + tramo.maximo()) / 2.0;
+            anterior = tramo.pesoAcumulado();
+        }
+        return media / pesoTotal;
+    }
+}
@@ -0,0 +1,316 @@
+package dev.jotxee.secretsanta.dataset;
+
+import dev.jotxee.secretsanta.asignacion.ModoAsignacion;
+import dev.jotxee.secretsanta.asignacion.RestriccionesAsignacion;
+import dev.jotxee.secretsanta.asignacion.SolverAsignacion;
+import dev.jotxee.secretsanta.util.EmailCryptoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Genera un volumen realista de usuarios, sorteos y perfiles para ver cómo se comportan las consultas
+ * con tamaños de producción. Solo se activa con el perfil {@code dataset}:
+ *
+ * <pre>
+ * ./gradlew bootRun --args='--spring.profiles.active=dataset --app.dataset.usuarios=2000000 --app.dataset.sorteos=300000'
+ * </pre>
+ *
+ * Las filas se cargan con {@code COPY ... FROM STDIN} en una sola transacción. Los emails se cifran y se
+ * indexan con {@link EmailCryptoService}, igual que al guardar un {@code Usuario}, y cada sorteo lleva una
+ * asignación válida del {@link SolverAsignacion}. Todos los usuarios comparten la contraseña
+ * {@code app.dataset.password} (un único hash BCrypt) y su email es {@code usuario<N>@<app.dataset.dominio>},
+ * así que se puede iniciar sesión con cualquiera. Los tamaños de sorteo siguen {@code app.dataset.tamanos}
+ * (ver {@link DistribucionTamanos}) y con la misma {@code app.dataset.semilla} se repiten los mismos sorteos.
+ */
+@Component
+@Profile("dataset")
+@RequiredArgsConstructor
+@Slf4j
+public class GeneradorDataset implements ApplicationRunner {
+
+    private static final int EMAILS_POR_LOTE = 10_000;
+    private static final int DIAS_HISTORICO = 3 * 365;
+
+    private final DataSource dataSource;
+    private final EmailCryptoService emailCryptoService;
+    private final PasswordEncoder passwordEncoder;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${app.dataset.usuarios:100000}")
+    private int usuarios;
+
+    @Value("${app.dataset.sorteos:10000}")
+    private int sorteos;
+
+    @Value("${app.dataset.tamanos:3-10:60,11-50:35,51-500:5}")
+    private String tamanos;
+
+    @Value("${app.dataset.activos:0.8}")
+    private double proporcionActivos;
+
+    @Value("${app.dataset.semilla:42}")
+    private long semilla;
+
+    @Value("${app.dataset.dominio:dataset.secretsanta.local}")
+    private String dominio;
+
+    @Value("${app.dataset.password:dataset}")
+    private String password;
+
+    @Value("${app.dataset.cerrar-al-terminar:true}")
+    private boolean cerrarAlTerminar;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        DistribucionTamanos distribucion = DistribucionTamanos.parse(tamanos);
+        if (usuarios < 2 || sorteos < 1) {
+            throw new IllegalArgumentException("app.dataset necesita al menos 2 usuarios y 1 sorteo");
+        }
+        if (distribucion.maximo() > usuarios) {
+            throw new IllegalArgumentException("La distribución admite sorteos de " + distribucion.maximo()
+                    + " participantes pero solo se generan " + usuarios + " usuarios");
+        }
+        log.info("🧪 Generando dataset: {} usuarios y {} sorteos (~{} perfiles, tamaños '{}', semilla {})",
+                usuarios, sorteos, Math.round(sorteos * distribucion.media()), tamanos, semilla);
+
+        long inicio = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(semilla);
+        try (Connection conexion = dataSource.getConnection()) {
+            conexion.setAutoCommit(false);
+            comprobarQueNoExiste(conexion);
+            CopyManager copyManager = conexion.unwrap(PGConnection.class).getCopyAPI();
+
+            long primerUsuario = siguienteId(conexion, "usuarios", "usuarios_seq");
+            long primerSorteo = siguienteId(conexion, "sorteos", secuenciaIdentidad(conexion, "sorteos"));
+            long primerPerfil = siguienteId(conexion, "perfil_sorteo", "perfil_sorteo_seq");
+
+            int[] tamanosSorteo = new int[sorteos];
+            for (int i = 0; i < sorteos; i++) {
+                tamanosSorteo[i] = distribucion.muestrear(random);
+            }
+
+            cargarUsuarios(copyManager, primerUsuario, random);
+            cargarSorteos(copyManager, primerSorteo, random);
+            long perfiles = cargarPerfiles(copyManager, tamanosSorteo, primerUsuario, primerSorteo, primerPerfil, random);
+
+            ajustarSecuencias(conexion);
+            conexion.commit();
+            try (Statement st = conexion.createStatement()) {
+                st.execute("ANALYZE usuarios, sorteos, perfil_sorteo");
+            }
+            conexion.commit();
+            log.info("✅ Dataset generado en {} s: {} usuarios, {} sorteos y {} perfiles",
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - inicio), usuarios, sorteos, perfiles);
+        }
+
+        if (cerrarAlTerminar) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private String email(int usuario) {
+        return "usuario" + usuario + "@" + dominio;
+    }
+
+    /**
+     * Los emails son deterministas: si el primero ya existe, el dataset ya se cargó en esta base de datos.
+     */
+    private void comprobarQueNoExiste(Connection conexion) throws SQLException {
+        try (PreparedStatement ps = conexion.prepareStatement("SELECT 1 FROM usuarios WHERE email_hash = ?")) {
+            ps.setString(1, emailCryptoService.indice(email(0)));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    throw new IllegalStateException("Ya hay un dataset con el dominio " + dominio
+                            + " en esta base de datos; usa otro app.dataset.dominio o una base de datos vacía");
+                }
+            }
+        }
+    }
+
+    private static String secuenciaIdentidad(Connection conexion, String tabla) throws SQLException {
+        try (PreparedStatement ps = conexion.prepareStatement("SELECT pg_get_serial_sequence(?, 'id')")) {
+            ps.setString(1, tabla);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        }
+    }
+
+    /**
+     * Primer id libre: por encima del máximo de la tabla y de lo que la secuencia ya haya repartido
+     * (con secuencias de incremento 100, Hibernate puede tener reservado un bloque aún sin usar).
+     */
+    private static long siguienteId(Connection conexion, String tabla, String secuencia) throws SQLException {
+        String sql = "SELECT GREATEST((SELECT COALESCE(MAX(id), 0) FROM " + tabla + "), "
+                + "(SELECT last_value FROM " + secuencia + ")) + 1";
+        try (Statement st = conexion.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private void cargarUsuarios(CopyManager copyManager, long primerId, SplittableRandom random) throws SQLException {
+        String hash = passwordEncoder.encode(password);
+        LocalDateTime ahora = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        try (Copia copia = new Copia(copyManager,
+                "COPY usuarios (id, email, email_hash, password, nombre, genero, role, fecha_creacion) FROM STDIN")) {
+            for (int desde = 0; desde < usuarios; desde += EMAILS_POR_LOTE) {
+                int hasta = Math.min(usuarios, desde + EMAILS_POR_LOTE);
+                List<String> emails = new ArrayList<>(hasta - desde);
+                for (int i = desde; i < hasta; i++) {
+                    emails.add(email(i));
+                }
+                List<String> cifrados = emailCryptoService.encryptAll(emails);
+                List<String> indices = emailCryptoService.indiceAll(emails);
+                for (int i = desde; i < hasta; i++) {
+                    copia.fila(primerId + i, cifrados.get(i - desde), indices.get(i - desde), hash,
+                            "Usuario " + i, random.nextBoolean() ? "hombre" : "mujer", "USER",
+                            ahora.minusMinutes(random.nextLong(DIAS_HISTORICO * 24L * 60)));
+                }
+            }
+            log.info("👤 {} usuarios cargados", copia.terminar());
+        }
+    }
+
+    private void cargarSorteos(CopyManager copyManager, long primerId, SplittableRandom random) throws SQLException {
+        LocalDateTime ahora = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        try (Copia copia = new Copia(copyManager,
+                "COPY sorteos (id, nombre, importe_minimo, importe_maximo, fecha_creacion, activo) FROM STDIN")) {
+            for (int i = 0; i < sorteos; i++) {
+                double minimo = 5.0 * random.nextInt(1, 5);
+                copia.fila(primerId + i, "Sorteo " + i, minimo, minimo + 5.0 * random.nextInt(1, 11),
+                        ahora.minusMinutes(random.nextLong(DIAS_HISTORICO * 24L * 60)),
+                        random.nextDouble() < proporcionActivos);
+            }
+            log.info("🎲 {} sorteos cargados", copia.terminar());
+        }
+    }
+
+    private long cargarPerfiles(CopyManager copyManager, int[] tamanosSorteo, long primerUsuario, long primerSorteo,
+                                long primerPerfil, SplittableRandom random) throws SQLException {
+        try (Copia copia = new Copia(copyManager,
+                "COPY perfil_sorteo (id, usuario_id, sorteo_id, token, asignado_a, asignado_perfil_id) FROM STDIN")) {
+            long siguientePerfil = primerPerfil;
+            for (int s = 0; s < tamanosSorteo.length; s++) {
+                int[] participantes = elegirParticipantes(tamanosSorteo[s], random);
+                int[] asignados = SolverAsignacion.resolver(
+                        RestriccionesAsignacion.ninguna(participantes.length), ModoAsignacion.DESARREGLO, random);
+                List<String> emailsAsignados = new ArrayList<>(participantes.length);
+                for (int asignado : asignados) {
+                    emailsAsignados.add(email(participantes[asignado]));
+                }
+                List<String> asignadoA = emailCryptoService.encryptAll(emailsAsignados);
+                for (int i = 0; i < participantes.length; i++) {
+                    copia.fila(siguientePerfil + i, primerUsuario + participantes[i], primerSorteo + s,
+                            UUID.randomUUID(), asignadoA.get(i), siguientePerfil + asignados[i]);
+                }
+                siguientePerfil += participantes.length;
+            }
+            long perfiles = copia.terminar();
+            log.info("🎁 {} perfiles cargados", perfiles);
+            return perfiles;
+        }
+    }
+
+    /**
+     * {@code tamano} usuarios distintos al azar (algoritmo de Floyd: una iteración por elegido).
+     */
+    private int[] elegirParticipantes(int tamano, SplittableRandom random) {
+        Set<Integer> elegidos = new HashSet<>(tamano * 2);
+        for (int j = usuarios - tamano; j < usuarios; j++) {
+            int candidato = random.nextInt(j + 1);
+            elegidos.add(elegidos.contains(candidato) ? j : candidato);
+        }
+        return elegidos.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Las filas llevan ids explícitos: las secuencias se ponen por delante, como en V4.
+     */
+    private static void ajustarSecuencias(Connection conexion) throws SQLException {
+        try (Statement st = conexion.createStatement()) {
+            st.execute("SELECT setval('usuarios_seq', (SELECT MAX(id) FROM usuarios) + 100)");
+            st.execute("SELECT setval('perfil_sorteo_seq', (SELECT MAX(id) FROM perfil_sorteo) + 100)");
+            st.execute("SELECT setval(pg_get_serial_sequence('sorteos', 'id'), (SELECT MAX(id) FROM sorteos))");
+        }
+    }
+
+    /**
+     * Escribe filas en formato texto de COPY (tabuladores, {@code \N} para null) en bloques de ~1 MB.
+     * Los valores generados no contienen tabuladores, saltos de línea ni barras invertidas, así que no se escapan.
+     */
+    private static final class Copia implements AutoCloseable {
+
+        private static final int TAMANO_BLOQUE = 1 << 20;
+
+        private final CopyIn copyIn;
+        private final StringBuilder bloque = new StringBuilder(TAMANO_BLOQUE + 4096);
+
+        Copia(CopyManager copyManager, String sql) throws SQLException {
+            this.copyIn = copyManager.copyIn(sql);
+        }
+
+        void fila(Object... valores) throws SQLException {
+            for (int i = 0; i < valores.length; i++) {
+                if (i > 0) {
+                    bloque.append('\t');
+                }
+                bloque.append(valores[i] == null ? "\\N" : valores[i]);
+            }
+            bloque.append('\n');
+            if (bloque.length() >= TAMANO_BLOQUE) {
+                vaciar();
+            }
+        }
+
+        private void vaciar() throws SQLException {
+            byte[] bytes = bloque.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            bloque.setLength(0);
+        }
+
+        /**
+         * @return filas cargadas
+         */
+        long terminar() throws SQLException {
+            vaciar();
+            return copyIn.endCopy();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+}
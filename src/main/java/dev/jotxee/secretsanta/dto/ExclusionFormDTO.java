@@ -0,0 +1,12 @@
+package dev.jotxee.secretsanta.dto;
+
+import lombok.Data;
+
+/**
+ * Pareja de participantes que no pueden regalarse entre sí (en ningún sentido).
+ */
+@Data
+public class ExclusionFormDTO {
+    private String emailA;
+    private String emailB;
+}
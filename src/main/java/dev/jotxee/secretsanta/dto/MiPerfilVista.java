@@ -0,0 +1,47 @@
+package dev.jotxee.secretsanta.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Todo lo que muestra la página "Mi perfil" de un usuario: sus sorteos, del más reciente al más antiguo,
+ * con los participantes de cada uno (incluido él mismo) en orden de inscripción.
+ */
+public record MiPerfilVista(
+    Long usuarioId,
+    String nombre,
+    List<SorteoVista> sorteos
+) {
+
+    public record SorteoVista(
+        Long id,
+        String nombre,
+        String nombreInterno,
+        LocalDateTime fechaCreacion,
+        List<PerfilVista> participantes
+    ) {}
+
+    /**
+     * Email del dueño de la vista, sacado de su propia fila en los sorteos (la sesión no lo guarda).
+     * {@code null} si aún no participa en ningún sorteo.
+     */
+    public String email() {
+        return sorteos.stream()
+                .flatMap(sorteo -> sorteo.participantes().stream())
+                .filter(perfil -> perfil.usuarioId().equals(usuarioId))
+                .findFirst()
+                .map(PerfilVista::emailPlano)
+                .orElse(null);
+    }
+
+    /**
+     * Perfiles de un usuario en los sorteos de esta vista, en el orden de los sorteos.
+     * Para otro usuario son justo los sorteos que comparte con el dueño de la vista.
+     */
+    public List<PerfilVista> perfilesDe(Long otroUsuarioId) {
+        return sorteos.stream()
+                .flatMap(sorteo -> sorteo.participantes().stream())
+                .filter(perfil -> perfil.usuarioId().equals(otroUsuarioId))
+                .toList();
+    }
+}
@@ -0,0 +1,12 @@
+package dev.jotxee.secretsanta.dto;
+
+import java.util.List;
+
+/**
+ * Página de participantes de un sorteo. {@code siguiente} es el cursor para pedir la
+ * siguiente página ({@code desde}), o {@code null} si no hay más.
+ */
+public record PaginaParticipantes(
+    List<ParticipanteResumen> participantes,
+    Long siguiente
+) {}
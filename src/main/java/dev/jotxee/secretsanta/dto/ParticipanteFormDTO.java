@@ -7,4 +7,5 @@ public class ParticipanteFormDTO {
     private String nombre;
     private String email;
     private String genero; // "hombre" o "mujer"
+    private String grupo;  // hogar o equipo: nadie regala a alguien de su mismo grupo (opcional)
 }
@@ -0,0 +1,23 @@
+package dev.jotxee.secretsanta.dto;
+
+import dev.jotxee.secretsanta.entity.EmailCifrado;
+
+/**
+ * Participante de un sorteo tal como lo muestra el panel de administración.
+ * La asignación se devuelve cifrada: el administrador no debe verla en claro.
+ */
+public record ParticipanteResumen(
+    Long perfilId,
+    Long usuarioId,
+    String nombre,
+    String email,
+    String asignacionCifrada
+) {
+
+    /**
+     * Constructor para la proyección JPQL: solo se descifran los emails de la página pedida.
+     */
+    public ParticipanteResumen(Long perfilId, Long usuarioId, String nombre, EmailCifrado email, EmailCifrado asignadoA) {
+        this(perfilId, usuarioId, nombre, email.textoPlano(), asignadoA != null ? asignadoA.cifrado() : null);
+    }
+}
@@ -0,0 +1,6 @@
+package dev.jotxee.secretsanta.dto;
+
+/**
+ * Número de participantes de un sorteo, sin cargar sus perfiles.
+ */
+public record ParticipantesPorSorteo(Long sorteoId, long participantes) {}
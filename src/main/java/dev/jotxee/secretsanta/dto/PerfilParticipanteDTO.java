@@ -0,0 +1,20 @@
+package dev.jotxee.secretsanta.dto;
+
+/**
+ * Participante de un sorteo tal como se expone en {@code /my-profile/sorteo/{id}/perfiles}: nombre y tallas,
+ * sin emails ni asignaciones. Es parte de la versión {@value #VERSION} de esa respuesta; si cambian los
+ * campos de forma incompatible hay que subir la versión.
+ */
+public record PerfilParticipanteDTO(
+    Long perfilId,
+    Long usuarioId,
+    String nombre,
+    String tallaCamisa,
+    String tallaPantalon,
+    String tallaZapato,
+    String tallaChaqueta,
+    String preferencias
+) {
+
+    public static final int VERSION = 1;
+}
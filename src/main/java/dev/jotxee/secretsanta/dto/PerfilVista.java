@@ -0,0 +1,30 @@
+package dev.jotxee.secretsanta.dto;
+
+import dev.jotxee.secretsanta.entity.EmailCifrado;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila plana de la página "Mi perfil": un participante de un sorteo con sus tallas y los datos del sorteo.
+ * El email se mantiene cifrado y solo se descifra si la vista lo muestra.
+ */
+public record PerfilVista(
+    Long perfilId,
+    Long sorteoId,
+    String sorteoNombre,
+    String sorteoNombreInterno,
+    LocalDateTime sorteoFechaCreacion,
+    Long usuarioId,
+    String nombre,
+    EmailCifrado email,
+    String tallaCamisa,
+    String tallaPantalon,
+    String tallaZapato,
+    String tallaChaqueta,
+    String preferencias
+) {
+
+    public String emailPlano() {
+        return email.textoPlano();
+    }
+}
@@ -11,4 +11,6 @@ public class SorteoFormDTO {
     private Double importeMinimo;
     private Double importeMaximo;
     private List<ParticipanteFormDTO> participantes;
+    private List<ExclusionFormDTO> exclusiones;
+    private Long sorteoAnteriorId; // si se indica, no se repiten las parejas de ese sorteo
 }
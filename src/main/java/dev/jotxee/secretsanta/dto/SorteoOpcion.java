@@ -0,0 +1,9 @@
+package dev.jotxee.secretsanta.dto;
+
+/**
+ * Opción del selector de "sorteo anterior": el id y el nombre que se muestra (el interno si lo tiene).
+ */
+public record SorteoOpcion(
+    Long id,
+    String nombre
+) {}
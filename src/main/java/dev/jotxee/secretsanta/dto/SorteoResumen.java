@@ -0,0 +1,17 @@
+package dev.jotxee.secretsanta.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila del listado de sorteos del panel de administración: solo los datos de cabecera
+ * y el número de participantes, sin cargar perfiles ni usuarios.
+ */
+public record SorteoResumen(
+    Long id,
+    String nombre,
+    String nombreInterno,
+    Double importeMinimo,
+    Double importeMaximo,
+    LocalDateTime fechaCreacion,
+    long participantes
+) {}
@@ -0,0 +1,102 @@
+package dev.jotxee.secretsanta.entity;
+
+import dev.jotxee.secretsanta.util.EmailCryptoService;
+import org.hibernate.annotations.Immutable;
+
+import java.util.Objects;
+
+/**
+ * Email guardado cifrado que solo se descifra la primera vez que se lee.
+ *
+ * Al cargar una entidad se conserva el texto cifrado tal cual viene de la base de datos; el descifrado
+ * ocurre en {@link #textoPlano()} y su resultado se queda en la instancia. Así, listados grandes que no
+ * usan el email no pagan el coste de descifrarlo. Para Hibernate el valor es inmutable: cambiar el email
+ * es sustituir la instancia (ver {@link EmailCifradoConverter}).
+ *
+ * La igualdad tampoco descifra: dos valores son iguales si tienen el mismo texto cifrado, o si aún no se han
+ * guardado y tienen el mismo email en claro. Como el cifrado es aleatorio, el mismo email cifrado dos veces
+ * da valores distintos; para comparar emails se usa {@link #textoPlano()} o el índice ciego.
+ */
+@Immutable
+public final class EmailCifrado {
+
+    private final EmailCryptoService crypto;
+    private volatile String cifrado;
+    private volatile String textoPlano;
+
+    private EmailCifrado(String cifrado, String textoPlano, EmailCryptoService crypto) {
+        this.cifrado = cifrado;
+        this.textoPlano = textoPlano;
+        this.crypto = crypto;
+    }
+
+    /**
+     * Valor nuevo a partir del email en claro; se cifra al guardarlo.
+     */
+    public static EmailCifrado deTextoPlano(String email) {
+        return email == null ? null : new EmailCifrado(null, email, null);
+    }
+
+    static EmailCifrado deBaseDeDatos(String cifrado, EmailCryptoService crypto) {
+        return new EmailCifrado(cifrado, null, crypto);
+    }
+
+    /**
+     * Email en claro, descifrado en el primer acceso.
+     */
+    public String textoPlano() {
+        String valor = textoPlano;
+        if (valor == null) {
+            valor = crypto.decrypt(cifrado);
+            textoPlano = valor;
+        }
+        return valor;
+    }
+
+    /**
+     * Texto cifrado tal como está en la base de datos, o {@code null} si el valor aún no se ha guardado.
+     */
+    public String cifrado() {
+        return cifrado;
+    }
+
+    /**
+     * Compara solo los textos cifrados, sin descifrar. {@code false} no garantiza que los emails sean distintos.
+     */
+    public boolean mismoCifrado(EmailCifrado otro) {
+        return otro != null && cifrado != null && cifrado.equals(otro.cifrado);
+    }
+
+    String cifrar(EmailCryptoService cryptoService) {
+        String valor = cifrado;
+        if (valor == null) {
+            valor = cryptoService.encrypt(textoPlano);
+            cifrado = valor;
+        }
+        return valor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EmailCifrado otro)) return false;
+        if (cifrado != null || otro.cifrado != null) {
+            return Objects.equals(cifrado, otro.cifrado);
+        }
+        return Objects.equals(textoPlano, otro.textoPlano);
+    }
+
+    /**
+     * Cambia al guardar un valor nuevo (pasa de usar el texto en claro al cifrado): no conviene usar como clave
+     * de un {@code HashMap} un valor sin guardar.
+     */
+    @Override
+    public int hashCode() {
+        return cifrado != null ? cifrado.hashCode() : Objects.hashCode(textoPlano);
+    }
+
+    @Override
+    public String toString() {
+        return "EmailCifrado[" + (cifrado != null ? cifrado : "sin guardar") + "]";
+    }
+}
@@ -0,0 +1,31 @@
+package dev.jotxee.secretsanta.entity;
+
+import dev.jotxee.secretsanta.util.EmailCryptoService;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Igual que {@link EmailEncryptConverter}, pero al leer no descifra: entrega un {@link EmailCifrado}
+ * que lo hará solo si alguien consulta el email.
+ */
+@Component
+@Converter
+@RequiredArgsConstructor
+public class EmailCifradoConverter implements AttributeConverter<EmailCifrado, String> {
+
+    private final EmailCryptoService emailCryptoService;
+
+    @Override
+    public String convertToDatabaseColumn(EmailCifrado attribute) {
+        if (attribute == null) return null;
+        return attribute.cifrar(emailCryptoService);
+    }
+
+    @Override
+    public EmailCifrado convertToEntityAttribute(String dbData) {
+        if (dbData == null) return null;
+        return EmailCifrado.deBaseDeDatos(dbData, emailCryptoService);
+    }
+}
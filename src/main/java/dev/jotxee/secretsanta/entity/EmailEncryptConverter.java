@@ -3,27 +3,29 @@ package dev.jotxee.secretsanta.entity;
 import dev.jotxee.secretsanta.util.EmailCryptoService;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
-import org.springframework.beans.factory.annotation.Value;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+/**
+ * Hibernate obtiene el converter del contexto de Spring, así que todas las columnas cifradas
+ * comparten el mismo {@link EmailCryptoService}.
+ */
 @Component
 @Converter
+@RequiredArgsConstructor
 public class EmailEncryptConverter implements AttributeConverter<String, String> {
-    public static String staticKey;
 
-    public EmailEncryptConverter(@Value("${app.email-crypto-key}") String key) {
-        staticKey = key;
-    }
+    private final EmailCryptoService emailCryptoService;
 
     @Override
     public String convertToDatabaseColumn(String attribute) {
         if (attribute == null) return null;
-        return new EmailCryptoService(staticKey).encrypt(attribute);
+        return emailCryptoService.encrypt(attribute);
     }
 
     @Override
     public String convertToEntityAttribute(String dbData) {
         if (dbData == null) return null;
-        return new EmailCryptoService(staticKey).decrypt(dbData);
+        return emailCryptoService.decrypt(dbData);
     }
 }
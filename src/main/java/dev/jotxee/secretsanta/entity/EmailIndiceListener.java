@@ -0,0 +1,30 @@
+package dev.jotxee.secretsanta.entity;
+
+import dev.jotxee.secretsanta.util.EmailCryptoService;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Calcula {@code usuarios.email_hash} cuando el email es nuevo o ha cambiado. Un email cargado de la base
+ * de datos y no modificado conserva su texto cifrado, así que no hace falta descifrarlo para saber que
+ * su índice sigue siendo válido.
+ */
+@Component
+@RequiredArgsConstructor
+public class EmailIndiceListener {
+
+    private final EmailCryptoService emailCryptoService;
+
+    @PrePersist
+    @PreUpdate
+    public void actualizarIndice(Usuario usuario) {
+        EmailCifrado email = usuario.getEmailCifrado();
+        if (email == null) {
+            usuario.setEmailHash(null);
+        } else if (email.cifrado() == null || usuario.getEmailHash() == null) {
+            usuario.setEmailHash(emailCryptoService.indice(email.textoPlano()));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package dev.jotxee.secretsanta.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email pendiente de envío, escrito en la misma transacción que lo origina.
+ * Lo envía {@link dev.jotxee.secretsanta.service.EmailOutboxDispatcher}.
+ */
+@Entity
+@Table(name = "email_outbox")
+@Data
+@NoArgsConstructor
+public class EmailOutbox {
+
+    public enum Tipo { RESULTADO_SORTEO, PASSWORD }
+
+    public enum Estado { PENDIENTE, ENVIADO, FALLIDO }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_outbox_seq")
+    @SequenceGenerator(name = "email_outbox_seq", sequenceName = "email_outbox_seq", allocationSize = 100)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private Tipo tipo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Estado estado = Estado.PENDIENTE;
+
+    @Column(nullable = false, length = 500)
+    @Convert(converter = EmailEncryptConverter.class)
+    private String destinatario;
+
+    @Column(nullable = false)
+    private String nombre;
+
+    @Column(name = "sorteo_id")
+    private Long sorteoId;
+
+    private String token;
+
+    @Column(name = "password_cifrada", length = 500)
+    @Convert(converter = EmailEncryptConverter.class)
+    private String password;
+
+    @Column(nullable = false)
+    private int intentos;
+
+    @Column(name = "siguiente_intento", nullable = false)
+    private LocalDateTime siguienteIntento;
+
+    @Column(name = "ultimo_error", length = 1000)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_envio")
+    private LocalDateTime fechaEnvio;
+
+    public static EmailOutbox resultadoSorteo(Long sorteoId, String destinatario, String nombre, String token) {
+        EmailOutbox email = new EmailOutbox();
+        email.tipo = Tipo.RESULTADO_SORTEO;
+        email.sorteoId = sorteoId;
+        email.destinatario = destinatario;
+        email.nombre = nombre;
+        email.token = token;
+        return email;
+    }
+
+    public static EmailOutbox password(String destinatario, String nombre, String password) {
+        EmailOutbox email = new EmailOutbox();
+        email.tipo = Tipo.PASSWORD;
+        email.destinatario = destinatario;
+        email.nombre = nombre;
+        email.password = password;
+        return email;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        fechaCreacion = LocalDateTime.now();
+        if (siguienteIntento == null) {
+            siguienteIntento = fechaCreacion;
+        }
+    }
+}
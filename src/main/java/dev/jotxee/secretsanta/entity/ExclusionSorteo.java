@@ -0,0 +1,43 @@
+package dev.jotxee.secretsanta.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Pareja de participantes de un sorteo que no pueden regalarse entre sí.
+ */
+@Entity
+@Table(name = "sorteo_exclusiones")
+@Data
+@NoArgsConstructor
+public class ExclusionSorteo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sorteo_exclusiones_seq")
+    @SequenceGenerator(name = "sorteo_exclusiones_seq", sequenceName = "sorteo_exclusiones_seq", allocationSize = 100)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sorteo_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Sorteo sorteo;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "perfil_a_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private PerfilSorteo perfilA;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "perfil_b_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private PerfilSorteo perfilB;
+
+    public ExclusionSorteo(Sorteo sorteo, PerfilSorteo perfilA, PerfilSorteo perfilB) {
+        this.sorteo = sorteo;
+        this.perfilA = perfilA;
+        this.perfilB = perfilB;
+    }
+}
@@ -1,8 +1,11 @@
 package dev.jotxee.secretsanta.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.Hibernate;
 
 @Entity
 @Table(name = "perfil_sorteo")
@@ -11,7 +14,8 @@ import lombok.NoArgsConstructor;
 public class PerfilSorteo {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "perfil_sorteo_seq")
+    @SequenceGenerator(name = "perfil_sorteo_seq", sequenceName = "perfil_sorteo_seq", allocationSize = 100)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -25,9 +29,23 @@ public class PerfilSorteo {
     @Column(unique = true)
     private String token;
     
-    @Column(name = "asignado_a")
-    @Convert(converter = EmailEncryptConverter.class)
-    private String asignadoA;
+    @Column(name = "asignado_a", length = 512)
+    @Convert(converter = EmailCifradoConverter.class)
+    @ToString.Exclude
+    private EmailCifrado asignadoA;
+
+    /**
+     * Perfil del participante al que regala. La FK real (diferida, porque las asignaciones forman ciclos)
+     * la crea Flyway en V7; aquí no se declara para que el esquema generado no la compruebe fila a fila.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "asignado_perfil_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    @ToString.Exclude
+    @JsonIgnore
+    private PerfilSorteo asignado;
+    
+    @Column(length = 100)
+    private String grupo;
     
     @Column(name = "talla_camisa")
     private String tallaCamisa;
@@ -43,4 +61,41 @@ public class PerfilSorteo {
     
     @Column(columnDefinition = "TEXT")
     private String preferencias;
+
+    /**
+     * Email del participante al que regala, en claro; se descifra en el primer acceso.
+     */
+    public String getAsignadoA() {
+        return asignadoA != null ? asignadoA.textoPlano() : null;
+    }
+
+    public void setAsignadoA(String asignadoA) {
+        this.asignadoA = EmailCifrado.deTextoPlano(asignadoA);
+    }
+
+    /**
+     * Email asignado sin descifrar, para comparar o mostrar enmascarado sin pagar el descifrado.
+     */
+    public EmailCifrado getAsignadoACifrado() {
+        return asignadoA;
+    }
+
+    /**
+     * Igualdad por id, como en {@link Usuario}: sin recorrer {@code usuario} ni {@code sorteo}, que son lazy.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) {
+            return false;
+        }
+        return id != null && id.equals(((PerfilSorteo) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClass(this).hashCode();
+    }
 }
@@ -38,6 +38,9 @@ public class Sorteo {
     @Column(nullable = false)
     private Boolean activo = true;
     
+    @Column(name = "sorteo_anterior_id")
+    private Long sorteoAnteriorId;
+    
     @OneToMany(mappedBy = "sorteo", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<PerfilSorteo> perfiles = new ArrayList<>();
     
@@ -3,6 +3,8 @@ package dev.jotxee.secretsanta.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.Hibernate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -10,17 +12,26 @@ import java.util.List;
 
 @Entity
 @Table(name = "usuarios")
+@EntityListeners(EmailIndiceListener.class)
 @Data
 @NoArgsConstructor
 public class Usuario {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuarios_seq")
+    @SequenceGenerator(name = "usuarios_seq", sequenceName = "usuarios_seq", allocationSize = 100)
     private Long id;
     
-    @Column(unique = true, nullable = false)
-    @Convert(converter = EmailEncryptConverter.class)
-    private String email;
+    @Column(nullable = false, length = 512)
+    @Convert(converter = EmailCifradoConverter.class)
+    @ToString.Exclude
+    private EmailCifrado email;
+
+    /**
+     * Índice ciego del email (HMAC), lo mantiene {@link EmailIndiceListener}. Es la columna por la que se busca.
+     */
+    @Column(name = "email_hash", unique = true, length = 64)
+    private String emailHash;
     
     @Column(nullable = false)
     private String password;
@@ -37,4 +48,42 @@ public class Usuario {
     
     @OneToMany(mappedBy = "usuario", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<PerfilSorteo> perfiles = new ArrayList<>();
+
+    /**
+     * Email en claro; se descifra en el primer acceso.
+     */
+    public String getEmail() {
+        return email != null ? email.textoPlano() : null;
+    }
+
+    public void setEmail(String email) {
+        this.email = EmailCifrado.deTextoPlano(email);
+    }
+
+    /**
+     * Email sin descifrar, para comparar o mostrar enmascarado sin pagar el descifrado.
+     */
+    public EmailCifrado getEmailCifrado() {
+        return email;
+    }
+
+    /**
+     * Igualdad por id, solo si ambos lo tienen: dos usuarios sin guardar nunca son iguales y el hashCode no
+     * cambia cuando se les asigna id, así que pueden estar en un Set antes y después de guardarse.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) {
+            return false;
+        }
+        return id != null && id.equals(((Usuario) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClass(this).hashCode();
+    }
 }
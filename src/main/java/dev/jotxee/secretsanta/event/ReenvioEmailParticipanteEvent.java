@@ -4,6 +4,7 @@ package dev.jotxee.secretsanta.event;
  * Evento para el reenvío de email a un participante concreto.
  */
 public record ReenvioEmailParticipanteEvent(
+    Long sorteoId,
     String sorteoName,
     Double importeMinimo,
     Double importeMaximo,
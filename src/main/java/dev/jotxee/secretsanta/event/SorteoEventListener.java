@@ -1,19 +1,25 @@
 package dev.jotxee.secretsanta.event;
 
-import dev.jotxee.secretsanta.service.EmailService;
+import dev.jotxee.secretsanta.service.EmailOutboxService;
 import dev.jotxee.secretsanta.util.EmailCryptoService;
-import dev.jotxee.secretsanta.entity.EmailEncryptConverter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
+/**
+ * Convierte los eventos de sorteo en emails de la bandeja de salida. Se ejecuta de forma síncrona dentro
+ * de la transacción que publica el evento: si esta se deshace, los emails desaparecen con ella.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class SorteoEventListener {
 
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
+    private final EmailCryptoService emailCryptoService;
 
     @EventListener
     public void handleSorteoCreated(SorteoCreatedEvent event) {
@@ -21,17 +27,7 @@ public class SorteoEventListener {
                 event.sorteoId(), event.participants().size());
         
         try {
-            log.debug("📧 Iniciando envío de emails a participantes de forma asíncrona");
-            event.participants()
-                    .forEach(participant -> {
-                        log.debug("📤 Enviando email a: {}", new EmailCryptoService(EmailEncryptConverter.staticKey).encrypt(participant.email()));
-                        emailService.sendParticipantEmail(
-                            event.sorteoName(), 
-                            event.importeMinimo(),
-                            event.importeMaximo(),
-                            participant
-                        );
-                    });
+            emailOutboxService.encolarResultados(event.sorteoId(), event.participants());
             log.info("✅ Procesamiento del evento completado exitosamente");
         } catch (Exception e) {
             log.error("❌ Error procesando evento de sorteo creado", e);
@@ -41,17 +37,13 @@ public class SorteoEventListener {
 
     @EventListener
     public void handleReenvioEmailParticipante(ReenvioEmailParticipanteEvent event) {
-        log.info("🔄 Reenvío de email solicitado para participante {} en sorteo '{}'", new EmailCryptoService(EmailEncryptConverter.staticKey).encrypt(event.participant().email()), event.sorteoName());
+        String destinatario = emailCryptoService.referencia(event.participant().email());
+        log.info("🔄 Reenvío de email solicitado para participante {} en sorteo '{}'", destinatario, event.sorteoName());
         try {
-            emailService.sendParticipantEmail(
-                event.sorteoName(),
-                event.importeMinimo(),
-                event.importeMaximo(),
-                event.participant()
-            );
-            log.info("✅ Email reenviado correctamente a {}", new EmailCryptoService(EmailEncryptConverter.staticKey).encrypt(event.participant().email()));
+            emailOutboxService.encolarResultados(event.sorteoId(), List.of(event.participant()));
+            log.info("✅ Email encolado para reenvío a {}", destinatario);
         } catch (Exception e) {
-            log.error("❌ Error reenviando email a {}", new EmailCryptoService(EmailEncryptConverter.staticKey).encrypt(event.participant().email()), e);
+            log.error("❌ Error encolando reenvío de email a {}", destinatario, e);
             throw e;
         }
     }
@@ -0,0 +1,68 @@
+package dev.jotxee.secretsanta.repository;
+
+import dev.jotxee.secretsanta.entity.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    /**
+     * Bloquea hasta {@code limite} emails listos para enviar. Las filas ya bloqueadas por otro nodo se saltan.
+     * Debe llamarse dentro de una transacción, seguida de {@link #reservar}.
+     */
+    @Query(value = """
+            SELECT id FROM email_outbox
+            WHERE estado = 'PENDIENTE' AND siguiente_intento <= :ahora
+            ORDER BY siguiente_intento
+            LIMIT :limite
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<Long> bloquearPendientes(@Param("ahora") LocalDateTime ahora, @Param("limite") int limite);
+
+    /**
+     * Aparta los emails hasta {@code hasta}: si el nodo que los envía cae, vuelven a estar disponibles después.
+     */
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.siguienteIntento = :hasta, e.intentos = e.intentos + 1 WHERE e.id IN :ids")
+    int reservar(@Param("ids") Collection<Long> ids, @Param("hasta") LocalDateTime hasta);
+
+    @Modifying
+    @Query("""
+            UPDATE EmailOutbox e SET e.estado = dev.jotxee.secretsanta.entity.EmailOutbox.Estado.ENVIADO,
+                e.fechaEnvio = :fecha, e.password = null, e.ultimoError = null
+            WHERE e.id IN :ids
+            """)
+    int marcarEnviados(@Param("ids") Collection<Long> ids, @Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Hay emails listos para enviar desde antes de {@code limite}, es decir, los envíos van con retraso.
+     */
+    @Query("""
+            SELECT COUNT(e) > 0 FROM EmailOutbox e
+            WHERE e.estado = dev.jotxee.secretsanta.entity.EmailOutbox.Estado.PENDIENTE AND e.siguienteIntento < :limite
+            """)
+    boolean hayPendientesAnterioresA(@Param("limite") LocalDateTime limite);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.siguienteIntento = :siguiente, e.ultimoError = :error WHERE e.id = :id")
+    int reprogramar(@Param("id") Long id, @Param("siguiente") LocalDateTime siguiente, @Param("error") String error);
+
+    /**
+     * Deja el email como FALLIDO (no se vuelve a intentar) y borra la contraseña que pudiera contener.
+     */
+    @Modifying
+    @Query("""
+            UPDATE EmailOutbox e SET e.estado = dev.jotxee.secretsanta.entity.EmailOutbox.Estado.FALLIDO,
+                e.password = null, e.ultimoError = :error
+            WHERE e.id = :id
+            """)
+    int descartar(@Param("id") Long id, @Param("error") String error);
+}
@@ -0,0 +1,16 @@
+package dev.jotxee.secretsanta.repository;
+
+import dev.jotxee.secretsanta.entity.ExclusionSorteo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ExclusionSorteoRepository extends JpaRepository<ExclusionSorteo, Long> {
+
+    @Query("SELECT e FROM ExclusionSorteo e JOIN FETCH e.perfilA JOIN FETCH e.perfilB WHERE e.sorteo.id = :sorteoId")
+    List<ExclusionSorteo> findBySorteoId(@Param("sorteoId") Long sorteoId);
+}
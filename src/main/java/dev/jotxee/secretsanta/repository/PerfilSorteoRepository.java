@@ -1,20 +1,51 @@
 package dev.jotxee.secretsanta.repository;
 
+import dev.jotxee.secretsanta.dto.ParticipanteResumen;
+import dev.jotxee.secretsanta.dto.ParticipantesPorSorteo;
+import dev.jotxee.secretsanta.dto.PerfilParticipanteDTO;
+import dev.jotxee.secretsanta.dto.PerfilVista;
 import dev.jotxee.secretsanta.entity.PerfilSorteo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PerfilSorteoRepository extends JpaRepository<PerfilSorteo, Long> {
     
     @Query("SELECT ps FROM PerfilSorteo ps JOIN FETCH ps.usuario JOIN FETCH ps.sorteo WHERE ps.token = :token")
     Optional<PerfilSorteo> findByToken(@Param("token") String token);
+
+    /**
+     * Perfil del token con su sorteo y con el perfil (y usuario) al que regala, en una sola consulta.
+     */
+    @Query("SELECT ps FROM PerfilSorteo ps JOIN FETCH ps.usuario JOIN FETCH ps.sorteo " +
+           "LEFT JOIN FETCH ps.asignado a LEFT JOIN FETCH a.usuario WHERE ps.token = :token")
+    Optional<PerfilSorteo> findByTokenWithAsignado(@Param("token") String token);
+
+    @Query("SELECT u.nombre FROM PerfilSorteo ps JOIN ps.usuario u WHERE ps.sorteo.id = :sorteoId")
+    List<String> findNombresBySorteoId(@Param("sorteoId") Long sorteoId);
+
+    /**
+     * Página de participantes de un sorteo con id de perfil mayor que {@code desde}, para el panel de administración.
+     */
+    @Query("SELECT new dev.jotxee.secretsanta.dto.ParticipanteResumen(ps.id, u.id, u.nombre, u.email, ps.asignadoA) " +
+           "FROM PerfilSorteo ps JOIN ps.usuario u WHERE ps.sorteo.id = :sorteoId AND ps.id > :desde ORDER BY ps.id")
+    List<ParticipanteResumen> findParticipantes(@Param("sorteoId") Long sorteoId, @Param("desde") Long desde, Limit limite);
     
+    @Query("SELECT new dev.jotxee.secretsanta.dto.ParticipantesPorSorteo(ps.sorteo.id, COUNT(ps)) " +
+           "FROM PerfilSorteo ps WHERE ps.sorteo.id IN :sorteoIds GROUP BY ps.sorteo.id")
+    List<ParticipantesPorSorteo> contarParticipantes(@Param("sorteoIds") Collection<Long> sorteoIds);
+
     @Query("SELECT ps FROM PerfilSorteo ps JOIN FETCH ps.usuario WHERE ps.sorteo.id = :sorteoId")
     List<PerfilSorteo> findBySorteoId(@Param("sorteoId") Long sorteoId);
     
@@ -26,10 +57,31 @@ public interface PerfilSorteoRepository extends JpaRepository<PerfilSorteo, Long
     
     @Query("SELECT ps FROM PerfilSorteo ps JOIN FETCH ps.usuario JOIN FETCH ps.sorteo WHERE ps.usuario.id = :usuarioId AND ps.sorteo.id = :sorteoId")
     Optional<PerfilSorteo> findByUsuarioIdAndSorteoId(@Param("usuarioId") Long usuarioId, @Param("sorteoId") Long sorteoId);
-    
-    @Query("SELECT ps FROM PerfilSorteo ps JOIN FETCH ps.usuario WHERE ps.sorteo.id = :sorteoId AND ps.asignadoA = :email")
-    List<PerfilSorteo> findBySorteoIdAndAsignadoA(@Param("sorteoId") Long sorteoId, @Param("email") String email);
+
     
     @Query("SELECT ps FROM PerfilSorteo ps JOIN FETCH ps.usuario WHERE ps.id = :id")
     Optional<PerfilSorteo> findByIdWithUsuario(@Param("id") Long id);
+
+    /**
+     * Todos los participantes de los sorteos en los que está el usuario, con los datos del sorteo, ordenados
+     * por sorteo (más reciente primero) y por perfil. Es la única consulta de la página "Mi perfil".
+     */
+    @Query("SELECT new dev.jotxee.secretsanta.dto.PerfilVista(ps.id, s.id, s.nombre, s.nombreInterno, s.fechaCreacion, " +
+           "u.id, u.nombre, u.email, ps.tallaCamisa, ps.tallaPantalon, ps.tallaZapato, ps.tallaChaqueta, ps.preferencias) " +
+           "FROM PerfilSorteo ps JOIN ps.sorteo s JOIN ps.usuario u " +
+           "WHERE s.id IN (SELECT mio.sorteo.id FROM PerfilSorteo mio WHERE mio.usuario.id = :usuarioId) " +
+           "ORDER BY s.fechaCreacion DESC, s.id DESC, ps.id")
+    List<PerfilVista> findVistaMiPerfil(@Param("usuarioId") Long usuarioId);
+
+    boolean existsByUsuarioIdAndSorteoId(Long usuarioId, Long sorteoId);
+
+    /**
+     * Participantes de un sorteo con id de perfil mayor que {@code desde}, leídos con cursor de base de datos
+     * para escribirlos en la respuesta según llegan. Hay que consumirlo dentro de una transacción y cerrarlo.
+     */
+    @Query("SELECT new dev.jotxee.secretsanta.dto.PerfilParticipanteDTO(ps.id, u.id, u.nombre, " +
+           "ps.tallaCamisa, ps.tallaPantalon, ps.tallaZapato, ps.tallaChaqueta, ps.preferencias) " +
+           "FROM PerfilSorteo ps JOIN ps.usuario u WHERE ps.sorteo.id = :sorteoId AND ps.id > :desde ORDER BY ps.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    Stream<PerfilParticipanteDTO> streamPerfilesParticipantes(@Param("sorteoId") Long sorteoId, @Param("desde") Long desde, Limit limite);
 }
@@ -1,6 +1,9 @@
 package dev.jotxee.secretsanta.repository;
 
+import dev.jotxee.secretsanta.dto.SorteoOpcion;
+import dev.jotxee.secretsanta.dto.SorteoResumen;
 import dev.jotxee.secretsanta.entity.Sorteo;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -11,18 +14,21 @@ import java.util.List;
 @Repository
 public interface SorteoRepository extends JpaRepository<Sorteo, Long> {
     
-    @Query("SELECT DISTINCT s FROM Sorteo s LEFT JOIN FETCH s.perfiles p LEFT JOIN FETCH p.usuario WHERE s.activo = true")
-    List<Sorteo> findByActivoTrue();
+    /**
+     * Página de sorteos activos, del más reciente al más antiguo, empezando por los de id menor que {@code antesDe}
+     * (paginación por cursor: cada página cuesta lo mismo). El recuento de participantes es una subconsulta
+     * por sorteo sobre idx_perfil_sorteo_sorteo_id, solo para las filas devueltas.
+     */
+    @Query("SELECT new dev.jotxee.secretsanta.dto.SorteoResumen(s.id, s.nombre, s.nombreInterno, " +
+           "s.importeMinimo, s.importeMaximo, s.fechaCreacion, " +
+           "(SELECT COUNT(p) FROM PerfilSorteo p WHERE p.sorteo = s)) " +
+           "FROM Sorteo s WHERE s.activo = true AND s.id < :antesDe ORDER BY s.id DESC")
+    List<SorteoResumen> findResumenesActivos(@Param("antesDe") Long antesDe, Limit limite);
 
-    @Query("SELECT DISTINCT s FROM Sorteo s LEFT JOIN FETCH s.perfiles p LEFT JOIN FETCH p.usuario WHERE s.id IN :ids")
-    List<Sorteo> findByIdInWithPerfiles(@Param("ids") List<Long> ids);
-    
     /**
-     * Consulta optimizada para obtener sorteos compartidos entre dos usuarios.
-     * Usa una única consulta SQL en lugar de múltiples consultas y filtrado en memoria.
+     * Los sorteos activos más recientes para el selector de "sorteo anterior": solo id y nombre a mostrar.
      */
-    @Query("SELECT DISTINCT s FROM Sorteo s " +
-           "WHERE EXISTS (SELECT 1 FROM PerfilSorteo p1 WHERE p1.sorteo = s AND p1.usuario.id = :userId1) " +
-           "AND EXISTS (SELECT 1 FROM PerfilSorteo p2 WHERE p2.sorteo = s AND p2.usuario.id = :userId2)")
-    List<Sorteo> findSharedSorteos(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
+    @Query("SELECT new dev.jotxee.secretsanta.dto.SorteoOpcion(s.id, COALESCE(NULLIF(s.nombreInterno, ''), s.nombre)) " +
+           "FROM Sorteo s WHERE s.activo = true ORDER BY s.id DESC")
+    List<SorteoOpcion> findOpcionesActivas(Limit limite);
 }
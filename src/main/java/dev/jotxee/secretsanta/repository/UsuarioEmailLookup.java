@@ -0,0 +1,19 @@
+package dev.jotxee.secretsanta.repository;
+
+import dev.jotxee.secretsanta.entity.Usuario;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Búsquedas de usuarios por email en claro. Se resuelven por el índice ciego {@code email_hash}.
+ */
+public interface UsuarioEmailLookup {
+
+    Optional<Usuario> findByEmail(String email);
+
+    boolean existsByEmail(String email);
+
+    List<Usuario> findByEmailIn(Collection<String> emails);
+}
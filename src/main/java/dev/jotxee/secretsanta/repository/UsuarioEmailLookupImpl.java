@@ -0,0 +1,82 @@
+package dev.jotxee.secretsanta.repository;
+
+import dev.jotxee.secretsanta.entity.Usuario;
+import dev.jotxee.secretsanta.util.EmailCryptoService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Implementación de {@link UsuarioEmailLookup}. Mientras el backfill no haya rellenado {@code email_hash}
+ * en todas las filas, lo que no se encuentra por el índice se busca también por el cifrado antiguo.
+ */
+@RequiredArgsConstructor
+class UsuarioEmailLookupImpl implements UsuarioEmailLookup {
+
+    private final EmailCryptoService emailCryptoService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /** Una vez que todas las filas tienen índice ya no puede volver a faltar: el listener lo rellena siempre. */
+    private volatile boolean indiceCompleto;
+
+    @Override
+    public Optional<Usuario> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        List<Usuario> usuarios = findByEmailIn(List.of(email));
+        return usuarios.isEmpty() ? Optional.empty() : Optional.of(usuarios.getFirst());
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return findByEmail(email).isPresent();
+    }
+
+    @Override
+    public List<Usuario> findByEmailIn(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return List.of();
+        }
+        List<Usuario> usuarios = new ArrayList<>(entityManager
+                .createQuery("SELECT u FROM Usuario u WHERE u.emailHash IN :hashes", Usuario.class)
+                .setParameter("hashes", emailCryptoService.indiceAll(emails))
+                .getResultList());
+
+        if (usuarios.size() < emails.size() && quedanSinIndice()) {
+            Set<String> encontrados = new HashSet<>();
+            usuarios.forEach(usuario -> encontrados.add(usuario.getEmailHash()));
+            List<String> legados = emails.stream()
+                    .filter(email -> !encontrados.contains(emailCryptoService.indice(email)))
+                    .map(emailCryptoService::encryptLegado)
+                    .toList();
+            if (!legados.isEmpty()) {
+                usuarios.addAll(entityManager
+                        .createNativeQuery("SELECT * FROM usuarios WHERE email_hash IS NULL AND email IN (:cifrados)", Usuario.class)
+                        .setParameter("cifrados", legados)
+                        .getResultList());
+            }
+        }
+        return usuarios;
+    }
+
+    private boolean quedanSinIndice() {
+        if (indiceCompleto) {
+            return false;
+        }
+        indiceCompleto = entityManager.createQuery("SELECT u.id FROM Usuario u WHERE u.emailHash IS NULL", Long.class)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+        return !indiceCompleto;
+    }
+}
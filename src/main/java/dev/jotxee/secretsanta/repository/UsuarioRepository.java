@@ -2,14 +2,18 @@ package dev.jotxee.secretsanta.repository;
 
 import dev.jotxee.secretsanta.entity.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
-
 @Repository
-public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
-    
-    Optional<Usuario> findByEmail(String email);
-    
-    boolean existsByEmail(String email);
+public interface UsuarioRepository extends JpaRepository<Usuario, Long>, UsuarioEmailLookup {
+
+    /**
+     * Sustituye solo el hash de la contraseña, sin cargar la entidad.
+     */
+    @Modifying
+    @Query("UPDATE Usuario u SET u.password = :password WHERE u.id = :id")
+    int actualizarPassword(@Param("id") Long id, @Param("password") String password);
 }
@@ -0,0 +1,228 @@
+package dev.jotxee.secretsanta.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Control de admisión del login, para que una ráfaga de intentos (fuerza bruta o media oficina a la vez)
+ * no ocupe todos los núcleos calculando BCrypt.
+ *
+ * Cada intento consume un hueco del cubo de su IP y del cubo de su usuario desde esa IP. El cubo de usuario va
+ * por IP y usuario para que nadie pueda dejar sin acceso a otro solo con fallar su contraseña desde fuera; un
+ * ataque repartido entre muchas IPs contra la misma cuenta lo frena el coste de BCrypt y el tope de
+ * verificaciones simultáneas, no este cubo. Los cubos son GCRA (equivalente
+ * a un token bucket) sobre un único {@link AtomicLong} que se actualiza con CAS, así que no hay bloqueos; el
+ * {@link ConcurrentHashMap} reparte las claves entre sus propios segmentos. Los intentos rechazados se
+ * responden en {@link LimiteLoginFilter}, antes de calcular ningún hash.
+ *
+ * Además se limita cuántas comprobaciones de contraseña corren a la vez ({@link VerificacionLimitadaProvider}).
+ */
+@Component
+@Slf4j
+public class LimitadorLogin {
+
+    private static final int LONGITUD_MAXIMA_USUARIO = 254;
+
+    public enum Motivo { IP, USUARIO }
+
+    /**
+     * Resultado de pedir paso: {@code motivo} es null si se admite; si no, {@code reintentarEn} indica cuánto esperar.
+     */
+    public record Decision(Motivo motivo, Duration reintentarEn) {
+        static final Decision ADMITIDO = new Decision(null, Duration.ZERO);
+
+        public boolean admitido() {
+            return motivo == null;
+        }
+    }
+
+    /**
+     * Límite de un tipo de clave: {@code rafaga} intentos seguidos y luego uno cada {@code intervaloNanos}.
+     */
+    private record Limite(long intervaloNanos, long toleranciaNanos) {
+        static Limite de(int rafaga, int porMinuto) {
+            if (rafaga < 1 || porMinuto < 1) {
+                throw new IllegalArgumentException("Los límites de login deben ser al menos 1");
+            }
+            long intervalo = TimeUnit.MINUTES.toNanos(1) / porMinuto;
+            return new Limite(intervalo, intervalo * (rafaga - 1));
+        }
+    }
+
+    private final Limite porIp;
+    private final Limite porUsuario;
+    private final LongSupplier reloj;
+    /** Instante teórico (System.nanoTime) en que el cubo de cada clave vuelve a estar lleno. */
+    private final ConcurrentHashMap<String, AtomicLong> cubosIp = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> cubosUsuario = new ConcurrentHashMap<>();
+
+    private final Semaphore verificaciones;
+    private final int maxVerificaciones;
+    private final long esperaVerificacionNanos;
+
+    private final Counter admitidos;
+    private final Counter limitadosIp;
+    private final Counter limitadosUsuario;
+    private final Counter saturados;
+
+    @Autowired
+    public LimitadorLogin(MeterRegistry meterRegistry,
+                          @Value("${app.login.ip.rafaga:20}") int rafagaIp,
+                          @Value("${app.login.ip.por-minuto:60}") int porMinutoIp,
+                          @Value("${app.login.usuario.rafaga:5}") int rafagaUsuario,
+                          @Value("${app.login.usuario.por-minuto:6}") int porMinutoUsuario,
+                          @Value("${app.login.verificaciones-simultaneas:0}") int verificacionesSimultaneas,
+                          @Value("${app.login.espera-verificacion:PT2S}") Duration esperaVerificacion) {
+        this(meterRegistry, Limite.de(rafagaIp, porMinutoIp), Limite.de(rafagaUsuario, porMinutoUsuario),
+                verificacionesSimultaneas, esperaVerificacion, System::nanoTime);
+    }
+
+    LimitadorLogin(MeterRegistry meterRegistry, int rafagaIp, int porMinutoIp, int rafagaUsuario, int porMinutoUsuario,
+                   int verificacionesSimultaneas, Duration esperaVerificacion, LongSupplier reloj) {
+        this(meterRegistry, Limite.de(rafagaIp, porMinutoIp), Limite.de(rafagaUsuario, porMinutoUsuario),
+                verificacionesSimultaneas, esperaVerificacion, reloj);
+    }
+
+    private LimitadorLogin(MeterRegistry meterRegistry, Limite porIp, Limite porUsuario,
+                           int verificacionesSimultaneas, Duration esperaVerificacion, LongSupplier reloj) {
+        this.porIp = porIp;
+        this.porUsuario = porUsuario;
+        this.reloj = reloj;
+        // 0 = la mitad de los núcleos, para que siempre quede CPU para el resto de peticiones
+        this.maxVerificaciones = verificacionesSimultaneas > 0
+                ? verificacionesSimultaneas
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.verificaciones = new Semaphore(maxVerificaciones);
+        this.esperaVerificacionNanos = esperaVerificacion.toNanos();
+
+        this.admitidos = contador(meterRegistry, "admitido");
+        this.limitadosIp = contador(meterRegistry, "limitado_ip");
+        this.limitadosUsuario = contador(meterRegistry, "limitado_usuario");
+        this.saturados = contador(meterRegistry, "saturado");
+        Gauge.builder("secretsanta.login.verificaciones.activas", this, l -> l.maxVerificaciones - l.verificaciones.availablePermits())
+                .description("Comprobaciones de contraseña (BCrypt) en curso")
+                .register(meterRegistry);
+        Gauge.builder("secretsanta.login.limitador.claves", this, l -> l.cubosIp.size() + l.cubosUsuario.size())
+                .description("IPs y pares IP-usuario con intentos de login recientes")
+                .register(meterRegistry);
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("secretsanta.login.intentos")
+                .description("Intentos de login admitidos o rechazados por el limitador")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Pide paso para un intento de login. Consume un hueco del cubo de la IP y, si lo hay, del usuario en esa IP.
+     */
+    public Decision admitir(String ip, String usuario) {
+        long ahora = reloj.getAsLong();
+        long espera = consumir(cubosIp, ip, porIp, ahora);
+        if (espera > 0) {
+            limitadosIp.increment();
+            return new Decision(Motivo.IP, Duration.ofNanos(espera));
+        }
+        String clave = claveUsuario(ip, usuario);
+        if (clave != null) {
+            espera = consumir(cubosUsuario, clave, porUsuario, ahora);
+            if (espera > 0) {
+                limitadosUsuario.increment();
+                return new Decision(Motivo.USUARIO, Duration.ofNanos(espera));
+            }
+        }
+        admitidos.increment();
+        return Decision.ADMITIDO;
+    }
+
+    /**
+     * Tras un login correcto se olvidan los intentos del usuario desde esa IP: sus fallos previos no le penalizan luego.
+     */
+    public void exito(String ip, String usuario) {
+        String clave = claveUsuario(ip, usuario);
+        if (clave != null) {
+            cubosUsuario.remove(clave);
+        }
+    }
+
+    /**
+     * Reserva una de las comprobaciones de contraseña simultáneas, esperando como mucho {@code app.login.espera-verificacion}.
+     * Si devuelve {@code true} hay que llamar a {@link #finVerificacion()} al terminar.
+     */
+    public boolean iniciarVerificacion() {
+        try {
+            if (verificaciones.tryAcquire(esperaVerificacionNanos, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        saturados.increment();
+        return false;
+    }
+
+    public void finVerificacion() {
+        verificaciones.release();
+    }
+
+    /**
+     * GCRA: admite si el instante teórico de llenado no supera ahora más la tolerancia de la ráfaga.
+     *
+     * @return 0 si se admite; si no, los nanosegundos que faltan para que quepa otro intento
+     */
+    private static long consumir(ConcurrentHashMap<String, AtomicLong> cubos, String clave, Limite limite, long ahora) {
+        AtomicLong llenoEn = cubos.computeIfAbsent(clave, k -> new AtomicLong(ahora));
+        while (true) {
+            long actual = llenoEn.get();
+            long base = actual - ahora < 0 ? ahora : actual;
+            long exceso = base - ahora - limite.toleranciaNanos();
+            if (exceso > 0) {
+                return exceso;
+            }
+            if (llenoEn.compareAndSet(actual, base + limite.intervaloNanos())) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Quita los cubos que ya se han vaciado del todo: equivalen a no haber intentado nada.
+     */
+    @Scheduled(fixedDelayString = "${app.login.limpieza:PT1M}")
+    public void limpiar() {
+        long ahora = reloj.getAsLong();
+        int antes = cubosIp.size() + cubosUsuario.size();
+        cubosIp.values().removeIf(llenoEn -> llenoEn.get() - ahora <= 0);
+        cubosUsuario.values().removeIf(llenoEn -> llenoEn.get() - ahora <= 0);
+        int quitados = antes - cubosIp.size() - cubosUsuario.size();
+        if (quitados > 0) {
+            log.debug("Limitador de login: {} claves inactivas eliminadas", quitados);
+        }
+    }
+
+    private static String claveUsuario(String ip, String usuario) {
+        if (usuario == null || usuario.isBlank()) {
+            return null;
+        }
+        String clave = usuario.strip().toLowerCase(Locale.ROOT);
+        if (clave.length() > LONGITUD_MAXIMA_USUARIO) {
+            clave = clave.substring(0, LONGITUD_MAXIMA_USUARIO);
+        }
+        return ip + " " + clave;
+    }
+}
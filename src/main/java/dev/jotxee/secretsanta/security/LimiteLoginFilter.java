@@ -0,0 +1,45 @@
+package dev.jotxee.secretsanta.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Aplica {@link LimitadorLogin} a cada POST de {@code /login} antes de que llegue al filtro de autenticación,
+ * de modo que los intentos rechazados no calculan ningún hash.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LimiteLoginFilter extends OncePerRequestFilter {
+
+    private final LimitadorLogin limitador;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !"/login".equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String ip = request.getRemoteAddr();
+        String username = request.getParameter("username");
+        LimitadorLogin.Decision decision = limitador.admitir(ip, username);
+        if (decision.admitido()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long segundos = Math.max(1, decision.reintentarEn().toSeconds() + 1);
+        log.warn("Login limitado por {} para usuario: {} desde IP: {} (reintentar en {} s)",
+                decision.motivo(), username, ip, segundos);
+        // Es un formulario: se vuelve a la página de login, que muestra cuánto esperar (Retry-After no serviría en un 302)
+        response.sendRedirect("/login?bloqueado=" + segundos);
+    }
+}
@@ -1,32 +1,68 @@
 package dev.jotxee.secretsanta.security;
 
 import dev.jotxee.secretsanta.entity.Usuario;
-import lombok.RequiredArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 
-@RequiredArgsConstructor
-public class ParticipanteUserDetails implements UserDetails {
+/**
+ * Principal de los usuarios autenticados. Solo guarda su {@link UsuarioActual}; el hash de la contraseña
+ * se descarta en cuanto termina la autenticación.
+ */
+public class ParticipanteUserDetails implements UserDetails, CredentialsContainer {
 
-    private final Usuario usuario;
+    @Getter
+    private final UsuarioActual identidad;
+
+    /** Momento en que se cargó la identidad, para saber si hay que refrescarla (ver {@link RefrescoIdentidad}). */
+    @Getter
+    private final Instant cargadaEn = Instant.now();
+
+    private String password;
+
+    public ParticipanteUserDetails(Usuario usuario) {
+        this(UsuarioActual.de(usuario), usuario.getPassword());
+    }
+
+    private ParticipanteUserDetails(UsuarioActual identidad, String password) {
+        this.identidad = identidad;
+        this.password = password;
+    }
+
+    /**
+     * Mismo usuario con otro hash de contraseña (tras rehashearla al hacer login).
+     */
+    ParticipanteUserDetails conPassword(String password) {
+        return new ParticipanteUserDetails(identidad, password);
+    }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of(new SimpleGrantedAuthority("ROLE_" + usuario.getRole()));
+        return List.of(new SimpleGrantedAuthority("ROLE_" + identidad.role()));
     }
 
     @Override
     public String getPassword() {
-        return usuario.getPassword();
+        return password;
     }
 
+    /**
+     * El id del usuario: la identidad de la sesión no guarda el email.
+     */
     @Override
     public String getUsername() {
-        return usuario.getEmail();
+        return String.valueOf(identidad.id());
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
     }
 
     @Override
@@ -50,11 +86,6 @@ public class ParticipanteUserDetails implements UserDetails {
     }
 
     public Long getId() {
-        return usuario.getId();
-    }
-
-    public Usuario getUsuario() {
-        return usuario;
+        return identidad.id();
     }
 }
-
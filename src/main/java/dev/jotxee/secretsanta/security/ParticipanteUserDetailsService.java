@@ -1,17 +1,29 @@
 package dev.jotxee.secretsanta.security;
 
 import dev.jotxee.secretsanta.repository.UsuarioRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
-public class ParticipanteUserDetailsService implements UserDetailsService {
+public class ParticipanteUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UsuarioRepository usuarioRepository;
+    private final Counter rehashes;
+
+    public ParticipanteUserDetailsService(UsuarioRepository usuarioRepository, MeterRegistry meterRegistry) {
+        this.usuarioRepository = usuarioRepository;
+        this.rehashes = Counter.builder("secretsanta.password.rehash")
+                .description("Contraseñas rehasheadas al hacer login por tener un algoritmo o coste antiguo")
+                .register(meterRegistry);
+    }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -19,5 +31,18 @@ public class ParticipanteUserDetailsService implements UserDetailsService {
             .map(ParticipanteUserDetails::new)
             .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + email));
     }
-}
 
+    /**
+     * Lo llama {@code DaoAuthenticationProvider} tras un login correcto cuando el hash guardado usa un algoritmo
+     * o un coste menor que el actual; {@code newPassword} ya viene hasheado con el actual.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        ParticipanteUserDetails participante = (ParticipanteUserDetails) user;
+        usuarioRepository.actualizarPassword(participante.getId(), newPassword);
+        rehashes.increment();
+        log.info("🔐 Contraseña del usuario {} rehasheada con el coste actual", participante.getId());
+        return participante.conPassword(newPassword);
+    }
+}
@@ -0,0 +1,61 @@
+package dev.jotxee.secretsanta.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de usuarios cuyos datos han cambiado después de iniciar sesión. Las sesiones abiertas con una
+ * identidad anterior al cambio la recargan en su siguiente petición ({@link RefrescoIdentidadFilter}).
+ *
+ * Cada marca se guarda lo que dura una sesión inactiva ({@code server.servlet.session.timeout}): una sesión
+ * que no ha hecho ninguna petición desde el cambio ya ha caducado pasado ese tiempo, así que la marca no
+ * vuelve a hacer falta.
+ *
+ * El registro está en memoria y solo funciona con una única instancia de la aplicación (que es como se
+ * despliega, con sesiones en memoria). Con varias instancias y sesiones compartidas habría que sustituirlo
+ * por una columna de versión en {@code usuarios} y comparar con la versión guardada en la sesión.
+ */
+@Slf4j
+@Component
+public class RefrescoIdentidad {
+
+    private final Map<Long, Instant> cambios = new ConcurrentHashMap<>();
+    private final Duration duracionSesion;
+
+    public RefrescoIdentidad(@Value("${server.servlet.session.timeout:30m}") Duration duracionSesion) {
+        this.duracionSesion = duracionSesion;
+    }
+
+    /**
+     * Indica que los datos del usuario han cambiado. Llamar después de confirmar la transacción.
+     */
+    public void marcar(Long usuarioId) {
+        cambios.put(usuarioId, Instant.now());
+    }
+
+    boolean caducada(ParticipanteUserDetails principal) {
+        Instant cambio = cambios.get(principal.getId());
+        return cambio != null && !principal.getCargadaEn().isAfter(cambio);
+    }
+
+    /**
+     * Olvida los cambios más antiguos que la duración de una sesión inactiva.
+     */
+    @Scheduled(fixedDelayString = "PT5M")
+    public void limpiar() {
+        Instant limite = Instant.now().minus(duracionSesion);
+        int antes = cambios.size();
+        cambios.values().removeIf(cambio -> cambio.isBefore(limite));
+        int quitados = antes - cambios.size();
+        if (quitados > 0) {
+            log.debug("Refresco de identidad: {} cambios antiguos eliminados", quitados);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package dev.jotxee.secretsanta.security;
+
+import dev.jotxee.secretsanta.repository.UsuarioRepository;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Recarga por id (sin buscar por email cifrado) la identidad de la sesión cuando {@link RefrescoIdentidad}
+ * indica que el usuario ha cambiado desde el login. Si el usuario ya no existe, la sesión deja de estar autenticada.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RefrescoIdentidadFilter extends OncePerRequestFilter {
+
+    private final RefrescoIdentidad refrescoIdentidad;
+    private final UsuarioRepository usuarioRepository;
+    private final SecurityContextRepository securityContextRepository;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion != null && autenticacion.getPrincipal() instanceof ParticipanteUserDetails principal
+                && refrescoIdentidad.caducada(principal)) {
+            SecurityContext contexto = SecurityContextHolder.createEmptyContext();
+            usuarioRepository.findById(principal.getId()).ifPresentOrElse(usuario -> {
+                ParticipanteUserDetails nuevo = new ParticipanteUserDetails(usuario);
+                nuevo.eraseCredentials();
+                var refrescada = UsernamePasswordAuthenticationToken.authenticated(nuevo, null, nuevo.getAuthorities());
+                refrescada.setDetails(autenticacion.getDetails());
+                contexto.setAuthentication(refrescada);
+                log.debug("Identidad de sesión refrescada para el usuario {}", principal.getId());
+            }, () -> log.info("El usuario {} ya no existe; se cierra su sesión", principal.getId()));
+            SecurityContextHolder.setContext(contexto);
+            securityContextRepository.saveContext(contexto, request, response);
+        }
+        chain.doFilter(request, response);
+    }
+}
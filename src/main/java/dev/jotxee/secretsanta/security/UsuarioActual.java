@@ -0,0 +1,17 @@
+package dev.jotxee.secretsanta.security;
+
+import dev.jotxee.secretsanta.entity.Usuario;
+
+import java.io.Serializable;
+
+/**
+ * Identidad del usuario autenticado, guardada en la sesión al hacer login. Es inmutable y no lleva la
+ * entidad ni la contraseña: los controladores la usan para saber quién es el usuario sin ir a la base de datos.
+ * Tampoco lleva el email, para no guardarlo en claro en la sesión.
+ */
+public record UsuarioActual(Long id, String nombre, String role) implements Serializable {
+
+    public static UsuarioActual de(Usuario usuario) {
+        return new UsuarioActual(usuario.getId(), usuario.getNombre(), usuario.getRole());
+    }
+}
@@ -0,0 +1,45 @@
+package dev.jotxee.secretsanta.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Envuelve el provider que comprueba contraseñas para que no haya más de
+ * {@code app.login.verificaciones-simultaneas} hashes BCrypt calculándose a la vez.
+ * Si no queda hueco en el tiempo de espera, el login falla con {@link LoginSaturadoException} sin calcular nada.
+ */
+@RequiredArgsConstructor
+public class VerificacionLimitadaProvider implements AuthenticationProvider {
+
+    /**
+     * Demasiados logins comprobándose a la vez; el usuario debe reintentar en unos segundos.
+     */
+    public static class LoginSaturadoException extends AuthenticationServiceException {
+        public LoginSaturadoException(String message) {
+            super(message);
+        }
+    }
+
+    private final AuthenticationProvider delegado;
+    private final LimitadorLogin limitador;
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!limitador.iniciarVerificacion()) {
+            throw new LoginSaturadoException("Demasiados inicios de sesión simultáneos");
+        }
+        try {
+            return delegado.authenticate(authentication);
+        } finally {
+            limitador.finVerificacion();
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegado.supports(authentication);
+    }
+}
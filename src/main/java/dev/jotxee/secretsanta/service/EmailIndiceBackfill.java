@@ -0,0 +1,147 @@
+package dev.jotxee.secretsanta.service;
+
+import dev.jotxee.secretsanta.util.EmailCryptoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Migra los emails cifrados con el esquema antiguo (AES/ECB) al nuevo (AES-GCM) y rellena {@code email_hash}.
+ *
+ * Trabaja por lotes de {@code app.email-crypto.backfill.lote} filas recorriendo la clave primaria, cada lote
+ * en su propia transacción y con {@code FOR UPDATE SKIP LOCKED}. Lo que ya está migrado no vuelve a
+ * seleccionarse, así que si la aplicación se para a medias basta con arrancarla otra vez; varios nodos
+ * pueden ejecutarlo a la vez sin pisarse.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.email-crypto.backfill", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class EmailIndiceBackfill {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EmailCryptoService emailCryptoService;
+
+    private static final String USUARIOS_PENDIENTES = "(email_hash IS NULL OR email NOT LIKE 'v2:%')";
+    private static final String PERFILES_PENDIENTES = "asignado_a IS NOT NULL AND asignado_a NOT LIKE 'v2:%'";
+    /** Cuánto esperar cuando las filas pendientes están bloqueadas por otro nodo. */
+    private static final Duration ESPERA_FILAS_BLOQUEADAS = Duration.ofSeconds(1);
+
+    @Value("${app.email-crypto.backfill.lote:500}")
+    private int tamanoLote;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        Thread.ofVirtual().name("email-backfill").start(this::ejecutar);
+    }
+
+    void ejecutar() {
+        try {
+            long usuarios = recorrer(new PasoBackfill("usuarios", this::migrarLoteUsuarios, USUARIOS_PENDIENTES));
+            long perfiles = recorrer(new PasoBackfill("perfil_sorteo", this::migrarLotePerfiles, PERFILES_PENDIENTES));
+            if (usuarios + perfiles > 0) {
+                log.info("🔐 Backfill de emails completado: {} usuarios y {} perfiles migrados", usuarios, perfiles);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.warn("⚠️ Backfill de emails interrumpido; se reanudará en el próximo arranque");
+        } catch (Exception ex) {
+            log.error("❌ Backfill de emails interrumpido; se reanudará en el próximo arranque", ex);
+        }
+    }
+
+    private record Lote(int migrados, long ultimoId) {}
+
+    /**
+     * @param tabla      tabla que se recorre
+     * @param migrar     migra el siguiente lote con id mayor que el indicado
+     * @param pendientes condición SQL de las filas que faltan por migrar en la tabla
+     */
+    private record PasoBackfill(String tabla, LongFunction<Lote> migrar, String pendientes) {}
+
+    /**
+     * Un lote vacío no significa que se haya terminado: con SKIP LOCKED puede ser que otro nodo tenga bloqueadas
+     * las filas siguientes. Solo se para cuando no queda ninguna pendiente por delante del cursor; si las hay,
+     * se espera a que el otro nodo las suelte y se vuelve a intentar desde el mismo punto.
+     */
+    private long recorrer(PasoBackfill paso) throws InterruptedException {
+        long total = 0;
+        long desde = 0;
+        while (true) {
+            long inicio = desde;
+            Lote lote = transactionTemplate.execute(status -> paso.migrar().apply(inicio));
+            if (lote != null && lote.ultimoId() >= 0) {
+                total += lote.migrados();
+                desde = lote.ultimoId();
+            } else if (quedanPendientes(paso, inicio)) {
+                Thread.sleep(ESPERA_FILAS_BLOQUEADAS.toMillis());
+            } else {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * Sin SKIP LOCKED: también cuenta las filas que otro nodo tiene bloqueadas.
+     */
+    private boolean quedanPendientes(PasoBackfill paso, long desdeId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + paso.tabla() + " WHERE id > ? AND " + paso.pendientes() + ")",
+                Boolean.class, desdeId));
+    }
+
+    private Lote migrarLoteUsuarios(long desdeId) {
+        List<Object[]> cambios = new ArrayList<>();
+        long[] ultimo = {-1};
+        jdbcTemplate.query("""
+                SELECT id, email FROM usuarios
+                WHERE id > ? AND %s
+                ORDER BY id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+                """.formatted(USUARIOS_PENDIENTES), rs -> {
+            long id = rs.getLong("id");
+            String email = emailCryptoService.decrypt(rs.getString("email"));
+            cambios.add(new Object[]{emailCryptoService.encrypt(email), emailCryptoService.indice(email), id});
+            ultimo[0] = id;
+        }, desdeId, tamanoLote);
+
+        if (!cambios.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE usuarios SET email = ?, email_hash = ? WHERE id = ?", cambios);
+        }
+        return new Lote(cambios.size(), ultimo[0]);
+    }
+
+    private Lote migrarLotePerfiles(long desdeId) {
+        List<Object[]> cambios = new ArrayList<>();
+        long[] ultimo = {-1};
+        jdbcTemplate.query("""
+                SELECT id, asignado_a FROM perfil_sorteo
+                WHERE id > ? AND %s
+                ORDER BY id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+                """.formatted(PERFILES_PENDIENTES), rs -> {
+            long id = rs.getLong("id");
+            cambios.add(new Object[]{emailCryptoService.encrypt(emailCryptoService.decrypt(rs.getString("asignado_a"))), id});
+            ultimo[0] = id;
+        }, desdeId, tamanoLote);
+
+        if (!cambios.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE perfil_sorteo SET asignado_a = ? WHERE id = ?", cambios);
+        }
+        return new Lote(cambios.size(), ultimo[0]);
+    }
+}
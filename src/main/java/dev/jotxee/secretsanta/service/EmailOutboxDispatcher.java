@@ -0,0 +1,267 @@
+package dev.jotxee.secretsanta.service;
+
+import dev.jotxee.secretsanta.dto.ParticipantesPorSorteo;
+import dev.jotxee.secretsanta.entity.EmailOutbox;
+import dev.jotxee.secretsanta.entity.Sorteo;
+import dev.jotxee.secretsanta.event.SorteoCreatedEvent;
+import dev.jotxee.secretsanta.repository.EmailOutboxRepository;
+import dev.jotxee.secretsanta.repository.PerfilSorteoRepository;
+import dev.jotxee.secretsanta.repository.SorteoRepository;
+import dev.jotxee.secretsanta.util.PlantillaHtml;
+import dev.jotxee.secretsanta.util.TramoSorteo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Vacía periódicamente la tabla {@code email_outbox}.
+ *
+ * Cada ronda reclama un lote de filas pendientes con {@code FOR UPDATE SKIP LOCKED} y las reserva durante
+ * {@code app.mail.outbox.reserva} en una transacción corta; el envío SMTP va fuera de la transacción.
+ * Si un envío falla se reprograma con espera exponencial y, al agotar los intentos, queda como FALLIDO.
+ * Un nodo que cae a mitad de envío deja sus filas reservadas hasta que vence la reserva: la entrega es
+ * "al menos una vez".
+ *
+ * Los resultados ({@code secretsanta.mail.outbox}) y el retraso desde que se encoló hasta que sale
+ * ({@code secretsanta.mail.outbox.retraso}) se etiquetan con el tramo de tamaño del sorteo del email.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.mail.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private static final int MAX_LONGITUD_ERROR = 1000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final SorteoRepository sorteoRepository;
+    private final PerfilSorteoRepository perfilSorteoRepository;
+    private final EmailService emailService;
+    private final MailDispatcher mailDispatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoLote;
+    private final int rondasPorSondeo;
+    private final int maxIntentos;
+    private final Duration reserva;
+    private final Duration esperaInicial;
+    private final Duration esperaMaxima;
+    private final MeterRegistry meterRegistry;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 SorteoRepository sorteoRepository,
+                                 PerfilSorteoRepository perfilSorteoRepository,
+                                 EmailService emailService,
+                                 MailDispatcher mailDispatcher,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.mail.outbox.lote:200}") int tamanoLote,
+                                 @Value("${app.mail.outbox.rondas-por-sondeo:10}") int rondasPorSondeo,
+                                 @Value("${app.mail.outbox.max-intentos:8}") int maxIntentos,
+                                 @Value("${app.mail.outbox.reserva:PT5M}") Duration reserva,
+                                 @Value("${app.mail.outbox.espera-inicial:PT30S}") Duration esperaInicial,
+                                 @Value("${app.mail.outbox.espera-maxima:PT1H}") Duration esperaMaxima) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.sorteoRepository = sorteoRepository;
+        this.perfilSorteoRepository = perfilSorteoRepository;
+        this.emailService = emailService;
+        this.mailDispatcher = mailDispatcher;
+        this.transactionTemplate = transactionTemplate;
+        this.tamanoLote = tamanoLote;
+        this.rondasPorSondeo = rondasPorSondeo;
+        this.maxIntentos = maxIntentos;
+        this.reserva = reserva;
+        this.esperaInicial = esperaInicial;
+        this.esperaMaxima = esperaMaxima;
+        this.meterRegistry = meterRegistry;
+    }
+
+    private Counter contador(String resultado, String tramo) {
+        return Counter.builder("secretsanta.mail.outbox")
+                .description("Emails procesados desde la bandeja de salida")
+                .tag("resultado", resultado)
+                .tag(TramoSorteo.TAG, tramo)
+                .register(meterRegistry);
+    }
+
+    private Timer retraso(EmailOutbox.Tipo tipo, String tramo) {
+        return Timer.builder("secretsanta.mail.outbox.retraso")
+                .description("Tiempo desde que se encola un email hasta que el relay lo acepta")
+                .tag("tipo", tipo.name())
+                .tag(TramoSorteo.TAG, tramo)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Comparte el planificador con otras tareas ({@code spring.task.scheduling.pool.size}), así que como mucho
+     * hace {@code app.mail.outbox.rondas-por-sondeo} rondas seguidas y luego cede el hilo hasta el siguiente sondeo.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.intervalo:PT2S}")
+    public void procesarPendientes() {
+        try {
+            // Mientras salgan lotes completos hay más trabajo esperando: seguir sin esperar al siguiente sondeo
+            int capacidad;
+            int rondas = 0;
+            while (++rondas <= rondasPorSondeo
+                    && (capacidad = capacidadDisponible()) > 0 && procesarLote(capacidad) == capacidad) {
+                log.debug("📤 Lote completo enviado, continuando con el siguiente");
+            }
+        } catch (Exception ex) {
+            log.error("❌ Error procesando la bandeja de salida de emails", ex);
+        }
+    }
+
+    /**
+     * Solo se reclaman tantos emails como el executor de envío puede aceptar: el resto se queda en la
+     * tabla, disponible para otros nodos, en lugar de reservarse y acabar rechazado.
+     */
+    private int capacidadDisponible() {
+        int capacidad = Math.min(tamanoLote, mailDispatcher.mensajesAdmisibles());
+        if (capacidad == 0) {
+            log.debug("⏳ Executor de email sin capacidad, se espera al siguiente sondeo");
+        }
+        return capacidad;
+    }
+
+    private int procesarLote(int limite) {
+        List<Long> ids = reclamarLote(limite);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<EmailOutbox> emails = emailOutboxRepository.findAllById(ids);
+        Map<Long, String> errores = new HashMap<>();
+        Map<MimeMessage, EmailOutbox> mensajes = construirMensajes(emails, errores);
+
+        for (MailDispatcher.Fallo fallo : mailDispatcher.enviar(List.copyOf(mensajes.keySet()))) {
+            errores.put(mensajes.get(fallo.mensaje()).getId(), describir(fallo.causa()));
+        }
+
+        registrarResultado(emails, errores, tramosPorSorteo(emails));
+        return ids.size();
+    }
+
+    private List<Long> reclamarLote(int limite) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<Long> bloqueados = emailOutboxRepository.bloquearPendientes(ahora, limite);
+            if (!bloqueados.isEmpty()) {
+                emailOutboxRepository.reservar(bloqueados, ahora.plus(reserva));
+            }
+            return bloqueados;
+        });
+        return ids != null ? ids : List.of();
+    }
+
+    private Map<MimeMessage, EmailOutbox> construirMensajes(List<EmailOutbox> emails, Map<Long, String> errores) {
+        // La parte común de cada sorteo se resuelve una sola vez por lote
+        List<Long> sorteoIds = emails.stream().map(EmailOutbox::getSorteoId).filter(Objects::nonNull).distinct().toList();
+        Map<Long, Sorteo> sorteos = sorteoRepository.findAllById(sorteoIds).stream()
+                .collect(Collectors.toMap(Sorteo::getId, Function.identity()));
+        Map<Long, PlantillaHtml> plantillas = new HashMap<>();
+
+        Map<MimeMessage, EmailOutbox> mensajes = new IdentityHashMap<>();
+        for (EmailOutbox email : emails) {
+            try {
+                mensajes.put(switch (email.getTipo()) {
+                    case RESULTADO_SORTEO -> construirResultado(email, sorteos, plantillas);
+                    case PASSWORD -> emailService.construirMensajePassword(email.getDestinatario(), email.getNombre(), email.getPassword());
+                }, email);
+            } catch (Exception ex) {
+                errores.put(email.getId(), describir(ex));
+            }
+        }
+        return mensajes;
+    }
+
+    private MimeMessage construirResultado(EmailOutbox email, Map<Long, Sorteo> sorteos,
+                                           Map<Long, PlantillaHtml> plantillas) throws Exception {
+        Sorteo sorteo = sorteos.get(email.getSorteoId());
+        if (sorteo == null) {
+            throw new IllegalStateException("El sorteo " + email.getSorteoId() + " ya no existe");
+        }
+        PlantillaHtml plantilla = plantillas.computeIfAbsent(sorteo.getId(), id -> emailService.prepararPlantillaSorteo(
+                sorteo.getNombre(), sorteo.getImporteMinimo(), sorteo.getImporteMaximo()));
+        return emailService.construirMensajeParticipante(sorteo.getNombre(), plantilla,
+                new SorteoCreatedEvent.ParticipantPayload(null, email.getNombre(), email.getDestinatario(), null, email.getToken()));
+    }
+
+    /**
+     * Tramo de tamaño de cada sorteo del lote, con una sola consulta agrupada.
+     */
+    private Map<Long, String> tramosPorSorteo(List<EmailOutbox> emails) {
+        List<Long> sorteoIds = emails.stream().map(EmailOutbox::getSorteoId).filter(Objects::nonNull).distinct().toList();
+        if (sorteoIds.isEmpty()) {
+            return Map.of();
+        }
+        return perfilSorteoRepository.contarParticipantes(sorteoIds).stream()
+                .collect(Collectors.toMap(ParticipantesPorSorteo::sorteoId, p -> TramoSorteo.de(p.participantes())));
+    }
+
+    private void registrarResultado(List<EmailOutbox> emails, Map<Long, String> errores, Map<Long, String> tramos) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<EmailOutbox> correctos = new ArrayList<>(emails.size());
+        transactionTemplate.executeWithoutResult(status -> {
+            for (EmailOutbox email : emails) {
+                String error = errores.get(email.getId());
+                if (error == null) {
+                    correctos.add(email);
+                } else if (email.getIntentos() >= maxIntentos) {
+                    emailOutboxRepository.descartar(email.getId(), error);
+                    contador("descartado", tramo(email, tramos)).increment();
+                    log.error("☠️ Email {} descartado tras {} intentos: {}", email.getId(), email.getIntentos(), error);
+                } else {
+                    emailOutboxRepository.reprogramar(email.getId(), ahora.plus(espera(email.getIntentos())), error);
+                    contador("reintento", tramo(email, tramos)).increment();
+                    log.warn("⚠️ Email {} falló (intento {} de {}), se reintentará: {}",
+                            email.getId(), email.getIntentos(), maxIntentos, error);
+                }
+            }
+            if (!correctos.isEmpty()) {
+                emailOutboxRepository.marcarEnviados(correctos.stream().map(EmailOutbox::getId).toList(), ahora);
+            }
+        });
+        for (EmailOutbox email : correctos) {
+            String tramo = tramo(email, tramos);
+            contador("enviado", tramo).increment();
+            retraso(email.getTipo(), tramo).record(Duration.between(email.getFechaCreacion(), ahora));
+        }
+    }
+
+    private static String tramo(EmailOutbox email, Map<Long, String> tramos) {
+        // Emails de contraseña o de un sorteo ya borrado
+        if (email.getSorteoId() == null) {
+            return TramoSorteo.SIN_SORTEO;
+        }
+        return tramos.getOrDefault(email.getSorteoId(), TramoSorteo.SIN_SORTEO);
+    }
+
+    /**
+     * Espera exponencial: espera-inicial, x2, x4... hasta espera-maxima.
+     */
+    private Duration espera(int intentos) {
+        Duration espera = esperaInicial.multipliedBy(1L << Math.min(intentos - 1, 20));
+        return espera.compareTo(esperaMaxima) > 0 ? esperaMaxima : espera;
+    }
+
+    private static String describir(Exception ex) {
+        String mensaje = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+        return mensaje.length() > MAX_LONGITUD_ERROR ? mensaje.substring(0, MAX_LONGITUD_ERROR) : mensaje;
+    }
+}
@@ -0,0 +1,60 @@
+package dev.jotxee.secretsanta.service;
+
+import dev.jotxee.secretsanta.entity.EmailOutbox;
+import dev.jotxee.secretsanta.event.SorteoCreatedEvent;
+import dev.jotxee.secretsanta.repository.EmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Encola emails en la tabla {@code email_outbox}. Se une a la transacción en curso, de modo que los
+ * emails solo existen si el sorteo (o el cambio de contraseña) llega a confirmarse.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+
+    @Value("${app.mail.outbox.retraso-aviso:PT1M}")
+    private Duration retrasoAviso;
+
+    @Value("${app.mail.outbox.enabled:true}")
+    private boolean envioActivo;
+
+    @Transactional
+    public void encolarResultados(Long sorteoId, Collection<SorteoCreatedEvent.ParticipantPayload> participantes) {
+        List<EmailOutbox> emails = participantes.stream()
+                .map(p -> EmailOutbox.resultadoSorteo(sorteoId, p.email(), p.name(), p.token()))
+                .toList();
+        emailOutboxRepository.saveAll(emails);
+        log.debug("📥 {} emails de resultado encolados para sorteo {}", emails.size(), sorteoId);
+    }
+
+    @Transactional
+    public void encolarPassword(String email, String nombre, String password) {
+        emailOutboxRepository.save(EmailOutbox.password(email, nombre, password));
+    }
+
+    /**
+     * Indica si el envío va con retraso: hay emails listos desde hace más de {@code app.mail.outbox.retraso-aviso}
+     * que aún no ha podido reclamar ningún nodo. Con el envío desactivado ({@code app.mail.outbox.enabled=false})
+     * no hay {@link EmailOutboxDispatcher} y la cola no avanza a propósito, así que no se avisa.
+     */
+    @Transactional(readOnly = true)
+    public boolean hayRetraso() {
+        if (!envioActivo) {
+            return false;
+        }
+        return emailOutboxRepository.hayPendientesAnterioresA(LocalDateTime.now().minus(retrasoAviso));
+    }
+}
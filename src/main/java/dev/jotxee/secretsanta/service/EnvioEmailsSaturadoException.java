@@ -0,0 +1,11 @@
+package dev.jotxee.secretsanta.service;
+
+/**
+ * La cola de envío de emails va con retraso y no se aceptan más envíos bajo demanda por ahora.
+ */
+public class EnvioEmailsSaturadoException extends RuntimeException {
+
+    public EnvioEmailsSaturadoException(String message) {
+        super(message);
+    }
+}
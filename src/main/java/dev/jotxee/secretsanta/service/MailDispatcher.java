@@ -0,0 +1,352 @@
+package dev.jotxee.secretsanta.service;
+
+import dev.jotxee.secretsanta.config.MailExecutorConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Envía los emails de un sorteo agrupados en lotes por un pequeño pool de conexiones SMTP de larga duración.
+ *
+ * Cada hilo de {@code mailExecutor} mantiene abierta su propia conexión (connect + STARTTLS + auth una sola
+ * vez) y la reutiliza lote tras lote, así que el número de hilos es el de conexiones simultáneas con el relay.
+ * Una conexión que lleva más de {@code app.mail.dispatch.conexion-inactiva} sin usarse se cierra (el relay
+ * la cortaría igualmente) y se vuelve a abrir en el siguiente lote; si se cae a mitad de un lote, se
+ * reconecta una vez y se reintenta el mensaje. Si el relay lo exige, se respeta un máximo de mensajes por
+ * segundo.
+ */
+@Component
+@Slf4j
+public class MailDispatcher {
+
+    private final JavaMailSender mailSender;
+    private final ThreadPoolTaskExecutor executor;
+    private final int mensajesPorConexion;
+    private final long nanosPorMensaje;
+    private final long inactividadNanos;
+    private final Counter conexiones;
+    private final Counter enviados;
+    private final Counter fallidos;
+    private final Timer tiempoLote;
+
+    /** Instante (System.nanoTime) a partir del cual puede arrancar el siguiente lote si hay límite de ritmo. */
+    private long siguienteHueco = System.nanoTime();
+
+    /** Conexión de cada hilo de envío; todas quedan registradas para cerrar las inactivas y al parar. */
+    private final Set<ConexionSmtp> conexionesAbiertas = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<ConexionSmtp> conexionDelHilo = ThreadLocal.withInitial(() -> {
+        ConexionSmtp conexion = new ConexionSmtp();
+        conexionesAbiertas.add(conexion);
+        return conexion;
+    });
+
+    public MailDispatcher(JavaMailSender mailSender,
+                          MeterRegistry meterRegistry,
+                          @Qualifier(MailExecutorConfig.MAIL_EXECUTOR) ThreadPoolTaskExecutor executor,
+                          @Value("${app.mail.dispatch.mensajes-por-conexion:50}") int mensajesPorConexion,
+                          @Value("${app.mail.dispatch.max-por-segundo:0}") double maxPorSegundo,
+                          @Value("${app.mail.dispatch.conexion-inactiva:PT30S}") Duration conexionInactiva) {
+        if (mensajesPorConexion < 1) {
+            throw new IllegalArgumentException("app.mail.dispatch.mensajes-por-conexion debe ser al menos 1");
+        }
+        this.mailSender = mailSender;
+        this.executor = executor;
+        this.mensajesPorConexion = mensajesPorConexion;
+        this.nanosPorMensaje = maxPorSegundo > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / maxPorSegundo) : 0L;
+        this.inactividadNanos = conexionInactiva.toNanos();
+
+        this.conexiones = Counter.builder("secretsanta.mail.conexiones")
+                .description("Conexiones SMTP abiertas (connect, STARTTLS y auth); se reutilizan entre lotes")
+                .register(meterRegistry);
+        this.enviados = Counter.builder("secretsanta.mail.mensajes")
+                .description("Emails entregados al relay SMTP")
+                .tag("resultado", "enviado")
+                .register(meterRegistry);
+        this.fallidos = Counter.builder("secretsanta.mail.mensajes")
+                .description("Emails entregados al relay SMTP")
+                .tag("resultado", "fallido")
+                .register(meterRegistry);
+        this.tiempoLote = Timer.builder("secretsanta.mail.lote")
+                .description("Tiempo de envío de cada lote por una conexión SMTP")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Mensajes que no se han podido enviar, con la causa de cada uno.
+     */
+    public record Fallo(MimeMessage mensaje, Exception causa) {}
+
+    /**
+     * Cuántos mensajes más caben ahora mismo en el executor sin que rechace lotes:
+     * hilos libres más huecos en la cola, por mensajes de cada lote.
+     */
+    public int mensajesAdmisibles() {
+        int libres = executor.getMaxPoolSize() - executor.getActiveCount()
+                + executor.getQueueCapacity() - executor.getQueueSize();
+        return Math.max(0, libres) * mensajesPorConexion;
+    }
+
+    /**
+     * Envía un único mensaje por la conexión del hilo actual. Lanza la excepción de envío si falla.
+     */
+    public void enviar(MimeMessage mensaje) {
+        List<Fallo> resultado = enviarLote(List.of(mensaje));
+        if (!resultado.isEmpty()) {
+            Exception causa = resultado.getFirst().causa();
+            throw causa instanceof RuntimeException runtime ? runtime : new MailSendException("Error enviando email", causa);
+        }
+    }
+
+    /**
+     * Envía todos los mensajes repartidos en lotes y espera a que terminen.
+     * Los lotes que el executor rechaza por estar lleno se devuelven como fallidos.
+     *
+     * @return los mensajes que han fallado; vacía si todo ha ido bien
+     */
+    public List<Fallo> enviar(List<MimeMessage> mensajes) {
+        if (mensajes.isEmpty()) {
+            return List.of();
+        }
+
+        long inicio = System.nanoTime();
+        List<CompletableFuture<List<Fallo>>> futuros = new ArrayList<>();
+        List<Fallo> resultado = new ArrayList<>();
+        for (int desde = 0; desde < mensajes.size(); desde += mensajesPorConexion) {
+            List<MimeMessage> lote = mensajes.subList(desde, Math.min(desde + mensajesPorConexion, mensajes.size()));
+            try {
+                futuros.add(CompletableFuture.supplyAsync(() -> enviarLote(lote), executor));
+            } catch (TaskRejectedException ex) {
+                log.warn("⏳ Executor de email lleno, {} mensajes quedan para el siguiente intento", lote.size());
+                lote.forEach(mensaje -> resultado.add(new Fallo(mensaje, ex)));
+            }
+        }
+
+        futuros.forEach(futuro -> resultado.addAll(futuro.join()));
+
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        log.info("📬 {} emails despachados en {} lotes ({} fallidos) en {} ms, {} emails/s",
+                mensajes.size(), futuros.size(), resultado.size(), millis,
+                Math.round(mensajes.size() * 1000.0 / millis));
+        return resultado;
+    }
+
+    private List<Fallo> enviarLote(List<MimeMessage> lote) {
+        esperarTurno(lote.size());
+        long inicio = System.nanoTime();
+        try {
+            if (mailSender instanceof JavaMailSenderImpl impl) {
+                return enviarPorConexion(impl, lote);
+            }
+            return enviarConConexionNueva(lote);
+        } finally {
+            tiempoLote.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Envía el lote por la conexión del hilo, abriéndola si no la hay o si ha estado inactiva demasiado tiempo.
+     */
+    private List<Fallo> enviarPorConexion(JavaMailSenderImpl impl, List<MimeMessage> lote) {
+        ConexionSmtp conexion = conexionDelHilo.get();
+        conexion.lock.lock();
+        try {
+            if (conexion.transport != null && System.nanoTime() - conexion.ultimoUso > inactividadNanos) {
+                conexion.cerrar();
+            }
+            List<Fallo> resultado = new ArrayList<>();
+            boolean reconectada = false;
+            for (int i = 0; i < lote.size(); i++) {
+                MimeMessage mensaje = lote.get(i);
+                try {
+                    conexion.abrir(impl);
+                    enviarMensaje(conexion.transport, mensaje);
+                } catch (MessagingException | RuntimeException ex) {
+                    if (conexion.transport != null && conexion.transport.isConnected()) {
+                        // El relay ha rechazado este mensaje, la conexión sigue sirviendo
+                        resultado.add(new Fallo(mensaje, ex));
+                        continue;
+                    }
+                    conexion.cerrar();
+                    if (!reconectada) {
+                        // Conexión caída (o cerrada por el relay): se reabre una vez y se reintenta el mensaje
+                        reconectada = true;
+                        i--;
+                        continue;
+                    }
+                    lote.subList(i, lote.size()).forEach(pendiente -> resultado.add(new Fallo(pendiente, ex)));
+                    break;
+                }
+            }
+            registrarResultado(lote.size(), resultado.size());
+            return resultado;
+        } finally {
+            conexion.ultimoUso = System.nanoTime();
+            conexion.lock.unlock();
+        }
+    }
+
+    /**
+     * Igual que hace {@link JavaMailSenderImpl} con cada mensaje antes de enviarlo.
+     */
+    private static void enviarMensaje(Transport transport, MimeMessage mensaje) throws MessagingException {
+        if (mensaje.getSentDate() == null) {
+            mensaje.setSentDate(new Date());
+        }
+        String messageId = mensaje.getMessageID();
+        mensaje.saveChanges();
+        if (messageId != null) {
+            mensaje.setHeader("Message-ID", messageId);
+        }
+        Address[] destinatarios = mensaje.getAllRecipients();
+        transport.sendMessage(mensaje, destinatarios != null ? destinatarios : new Address[0]);
+    }
+
+    /**
+     * Para un {@link JavaMailSender} que no es el de JavaMail (sin acceso a la sesión): una conexión por lote.
+     */
+    private List<Fallo> enviarConConexionNueva(List<MimeMessage> lote) {
+        conexiones.increment();
+        try {
+            mailSender.send(lote.toArray(MimeMessage[]::new));
+            enviados.increment(lote.size());
+            return List.of();
+        } catch (MailSendException ex) {
+            // Sin mensajes concretos fallidos significa que ha caído la conexión: se pierde el lote entero
+            List<Fallo> resultado = new ArrayList<>();
+            if (ex.getFailedMessages().isEmpty()) {
+                lote.forEach(mensaje -> resultado.add(new Fallo(mensaje, ex)));
+            } else {
+                ex.getFailedMessages().forEach((mensaje, causa) -> resultado.add(new Fallo((MimeMessage) mensaje, causa)));
+            }
+            registrarResultado(lote.size(), resultado.size());
+            return resultado;
+        } catch (RuntimeException ex) {
+            fallidos.increment(lote.size());
+            return lote.stream().map(mensaje -> new Fallo(mensaje, ex)).toList();
+        }
+    }
+
+    /**
+     * Cierra las conexiones que llevan más de {@code app.mail.dispatch.conexion-inactiva} sin usarse.
+     * Las que están enviando en ese momento se saltan.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.dispatch.conexion-inactiva:PT30S}")
+    public void cerrarInactivas() {
+        long ahora = System.nanoTime();
+        for (ConexionSmtp conexion : conexionesAbiertas) {
+            if (conexion.lock.tryLock()) {
+                try {
+                    if (conexion.transport != null && ahora - conexion.ultimoUso > inactividadNanos) {
+                        conexion.cerrar();
+                        log.debug("📪 Conexión SMTP inactiva cerrada");
+                    }
+                } finally {
+                    conexion.lock.unlock();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void cerrarConexiones() {
+        for (ConexionSmtp conexion : conexionesAbiertas) {
+            conexion.lock.lock();
+            try {
+                conexion.cerrar();
+            } finally {
+                conexion.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Conexión SMTP de un hilo de envío. Solo la usa su hilo; el lock es para que {@link #cerrarInactivas()}
+     * no la cierre a mitad de un lote.
+     */
+    private final class ConexionSmtp {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private Transport transport;
+        private long ultimoUso = System.nanoTime();
+
+        void abrir(JavaMailSenderImpl impl) throws MessagingException {
+            if (transport != null) {
+                return;
+            }
+            String protocolo = impl.getProtocol() != null ? impl.getProtocol()
+                    : impl.getSession().getProperty("mail.transport.protocol");
+            Transport nuevo = impl.getSession().getTransport(protocolo != null ? protocolo : "smtp");
+            String usuario = impl.getUsername();
+            String password = impl.getPassword();
+            if ("".equals(usuario)) {
+                usuario = null;
+                password = "".equals(password) ? null : password;
+            }
+            nuevo.connect(impl.getHost(), impl.getPort(), usuario, password);
+            conexiones.increment();
+            transport = nuevo;
+        }
+
+        void cerrar() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException ex) {
+                log.debug("Error cerrando conexión SMTP: {}", ex.getMessage());
+            }
+            transport = null;
+        }
+    }
+
+    private void registrarResultado(int total, int fallos) {
+        enviados.increment(total - fallos);
+        fallidos.increment(fallos);
+    }
+
+    /**
+     * Reserva el tramo de tiempo que le corresponde al lote según el ritmo máximo del relay y espera hasta él.
+     */
+    private void esperarTurno(int mensajes) {
+        if (nanosPorMensaje == 0) {
+            return;
+        }
+        long turno;
+        synchronized (this) {
+            long ahora = System.nanoTime();
+            turno = Math.max(siguienteHueco, ahora);
+            siguienteHueco = turno + nanosPorMensaje * mensajes;
+        }
+        long espera;
+        while ((espera = turno - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(espera);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package dev.jotxee.secretsanta.service;
+
+import dev.jotxee.secretsanta.dto.MiPerfilVista;
+import dev.jotxee.secretsanta.dto.PerfilParticipanteDTO;
+import dev.jotxee.secretsanta.dto.PerfilVista;
+import dev.jotxee.secretsanta.repository.PerfilSorteoRepository;
+import dev.jotxee.secretsanta.security.UsuarioActual;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Lectura de la página "Mi perfil". En lugar de cargar entidades con varias consultas y filtrarlas en memoria,
+ * trae en una sola consulta ya ordenada todos los participantes de los sorteos del usuario, y de ahí salen
+ * tanto sus perfiles como los de los demás participantes.
+ */
+@Service
+@RequiredArgsConstructor
+public class MiPerfilQueryService {
+
+    private final PerfilSorteoRepository perfilSorteoRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Vista del usuario autenticado. Sus datos vienen de la sesión, así que basta con una consulta.
+     */
+    @Transactional(readOnly = true)
+    public MiPerfilVista obtener(UsuarioActual usuario) {
+        List<MiPerfilVista.SorteoVista> sorteos = new ArrayList<>();
+        List<PerfilVista> participantes = null;
+        Long sorteoActual = null;
+        // Las filas llegan agrupadas por sorteo (ORDER BY sorteo, perfil)
+        for (PerfilVista fila : perfilSorteoRepository.findVistaMiPerfil(usuario.id())) {
+            if (!fila.sorteoId().equals(sorteoActual)) {
+                sorteoActual = fila.sorteoId();
+                participantes = new ArrayList<>();
+                sorteos.add(new MiPerfilVista.SorteoVista(fila.sorteoId(), fila.sorteoNombre(),
+                    fila.sorteoNombreInterno(), fila.sorteoFechaCreacion(), participantes));
+            }
+            participantes.add(fila);
+        }
+
+        return new MiPerfilVista(usuario.id(), usuario.nombre(), sorteos);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean participa(Long usuarioId, Long sorteoId) {
+        return perfilSorteoRepository.existsByUsuarioIdAndSorteoId(usuarioId, sorteoId);
+    }
+
+    /**
+     * Escribe en {@code salida} una página de participantes del sorteo según se leen de la base de datos,
+     * sin montar la lista en memoria:
+     * {@code {"version":1,"perfiles":[...],"siguiente":<cursor o null>}}.
+     * {@code siguiente} es el valor de {@code desde} para pedir la página siguiente.
+     */
+    @Transactional(readOnly = true)
+    public void escribirPerfilesSorteo(Long sorteoId, long desde, int limite, OutputStream salida) {
+        // Se pide uno de más para saber si hay otra página sin hacer un COUNT
+        try (Stream<PerfilParticipanteDTO> perfiles = perfilSorteoRepository.streamPerfilesParticipantes(
+                 sorteoId, desde, Limit.of(limite + 1));
+             JsonGenerator json = objectMapper.createGenerator(salida)) {
+            json.writeStartObject();
+            json.writeNumberProperty("version", PerfilParticipanteDTO.VERSION);
+            json.writeName("perfiles");
+            json.writeStartArray();
+
+            Long ultimo = null;
+            int escritos = 0;
+            boolean hayMas = false;
+            for (Iterator<PerfilParticipanteDTO> it = perfiles.iterator(); it.hasNext(); ) {
+                PerfilParticipanteDTO perfil = it.next();
+                if (escritos == limite) {
+                    hayMas = true;
+                    break;
+                }
+                json.writePOJO(perfil);
+                ultimo = perfil.perfilId();
+                escritos++;
+            }
+
+            json.writeEndArray();
+            if (hayMas) {
+                json.writeNumberProperty("siguiente", ultimo);
+            } else {
+                json.writeNullProperty("siguiente");
+            }
+            json.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package dev.jotxee.secretsanta.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Genera contraseñas y sus hashes BCrypt en paralelo.
+ *
+ * BCrypt es deliberadamente lento y solo usa CPU, así que se reparte en un pool acotado al número
+ * de núcleos (los hilos virtuales no aportan nada en trabajo de CPU). El pool es propio del servicio y
+ * no se publica como bean para no interferir con el executor que usa {@code @Async}.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordGeneratorService passwordGeneratorService;
+    private final ExecutorService executor;
+    private final int hilos;
+    private final Timer tiempoLote;
+    private final Timer tiempoHash;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  PasswordGeneratorService passwordGeneratorService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.password-hashing.threads:0}") int hilosConfigurados) {
+        this.passwordEncoder = passwordEncoder;
+        this.passwordGeneratorService = passwordGeneratorService;
+        this.hilos = hilosConfigurados > 0 ? hilosConfigurados : Runtime.getRuntime().availableProcessors();
+
+        // Cola acotada + CallerRuns: si varios sorteos llegan a la vez, el llamante hashea en lugar de encolar sin límite
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hilos * 4),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "password.hashing");
+
+        this.tiempoLote = Timer.builder("secretsanta.password.hashing.batch")
+                .description("Tiempo en generar y hashear todas las contraseñas nuevas de un sorteo")
+                .register(meterRegistry);
+        this.tiempoHash = Timer.builder("secretsanta.password.hash")
+                .description("Tiempo de cada hash BCrypt individual")
+                .register(meterRegistry);
+    }
+
+    public record CredencialGenerada(String passwordPlano, String passwordHash) {}
+
+    /**
+     * Genera una contraseña nueva y su hash.
+     */
+    public CredencialGenerada generarCredencial() {
+        String plainPassword = passwordGeneratorService.generatePassword();
+        String hash = tiempoHash.record(() -> passwordEncoder.encode(plainPassword));
+        return new CredencialGenerada(plainPassword, hash);
+    }
+
+    /**
+     * Genera una credencial por clave (normalmente el email), repartiendo el trabajo en tantos lotes como hilos.
+     *
+     * @return mapa clave → credencial, en el mismo orden de entrada
+     */
+    public Map<String, CredencialGenerada> generarCredenciales(Collection<String> claves) {
+        if (claves.isEmpty()) {
+            return Map.of();
+        }
+
+        long inicio = System.nanoTime();
+        List<String> pendientes = List.copyOf(claves);
+        int lotes = Math.min(hilos, pendientes.size());
+        int tamanoLote = (pendientes.size() + lotes - 1) / lotes;
+
+        List<CompletableFuture<List<CredencialGenerada>>> futuros = new ArrayList<>(lotes);
+        for (int desde = 0; desde < pendientes.size(); desde += tamanoLote) {
+            List<String> lote = pendientes.subList(desde, Math.min(desde + tamanoLote, pendientes.size()));
+            futuros.add(CompletableFuture.supplyAsync(
+                    () -> lote.stream().map(clave -> generarCredencial()).toList(), executor));
+        }
+
+        Map<String, CredencialGenerada> credenciales = new LinkedHashMap<>();
+        int posicion = 0;
+        for (CompletableFuture<List<CredencialGenerada>> futuro : futuros) {
+            for (CredencialGenerada credencial : futuro.join()) {
+                credenciales.put(pendientes.get(posicion++), credencial);
+            }
+        }
+
+        long duracion = System.nanoTime() - inicio;
+        tiempoLote.record(duracion, TimeUnit.NANOSECONDS);
+        log.info("{} contraseñas generadas y hasheadas en {} ms con {} hilos",
+                credenciales.size(), TimeUnit.NANOSECONDS.toMillis(duracion), lotes);
+        return credenciales;
+    }
+
+    @PreDestroy
+    void cerrar() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package dev.jotxee.secretsanta.service;
+
+import dev.jotxee.secretsanta.util.PlantillaHtml;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Plantillas de email leídas y compiladas una sola vez al arrancar.
+ * Los valores comunes a toda la aplicación (como la URL de login) se fijan aquí mismo.
+ */
+@Component
+@Slf4j
+public class PlantillasEmail {
+
+    public static final String PARTICIPANT_NAME = "PARTICIPANT_NAME";
+    public static final String SORTEO_NAME = "SORTEO_NAME";
+    public static final String REVEAL_URL = "REVEAL_URL";
+    public static final String GIFT_BUDGET = "GIFT_BUDGET";
+    public static final String PASSWORD = "PASSWORD";
+    public static final String LOGIN_URL = "LOGIN_URL";
+
+    private final PlantillaHtml participante;
+    private final PlantillaHtml password;
+
+    public PlantillasEmail(@Value("${app.base-url}") String applicationBaseUrl) {
+        this.participante = PlantillaHtml.compilar(cargar("templates/email-template.html", buildFallbackTemplate()));
+        this.password = PlantillaHtml.compilar(cargar("templates/email-password.html", buildPasswordFallbackTemplate()))
+                .fijar(Map.of(LOGIN_URL, applicationBaseUrl.endsWith("/")
+                        ? applicationBaseUrl + "login"
+                        : applicationBaseUrl + "/login"));
+        log.info("Plantillas de email compiladas: participante {}, contraseña {}", participante.huecos(), password.huecos());
+    }
+
+    /**
+     * Email con el enlace de resultado del sorteo. Huecos: PARTICIPANT_NAME, SORTEO_NAME, REVEAL_URL, GIFT_BUDGET.
+     */
+    public PlantillaHtml participante() {
+        return participante;
+    }
+
+    /**
+     * Email con la contraseña de acceso. Huecos: PARTICIPANT_NAME, PASSWORD.
+     */
+    public PlantillaHtml password() {
+        return password;
+    }
+
+    private static String cargar(String ruta, String fallback) {
+        try {
+            ClassPathResource resource = new ClassPathResource(ruta);
+            return new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        } catch (Exception _) {
+            log.warn("Template {} no encontrado, usando fallback", ruta);
+            return fallback;
+        }
+    }
+
+    private static String buildFallbackTemplate() {
+        return """
+                <!DOCTYPE html>
+                <html><head><meta charset="UTF-8"></head>
+                <body style="font-family: Arial; padding: 20px; background: #f4f4f4;">
+                    <div style="max-width: 600px; margin: 0 auto; background: white; padding: 30px; border-radius: 10px;">
+                        <h1 style="color: #c31432;">🎅 Amigo Invisible</h1>
+                        <p>¡Hola <strong>{{PARTICIPANT_NAME}}</strong>!</p>
+                        <p>Sorteo: <strong>{{SORTEO_NAME}}</strong></p>
+                        <p style="background: #e8f5e9; padding: 15px; border-radius: 5px; margin: 20px 0;">
+                            💰 <strong>Presupuesto del regalo:</strong> {{GIFT_BUDGET}}
+                        </p>
+                        <div style="text-align: center; margin: 30px 0;">
+                            <a href="{{REVEAL_URL}}" style="background: #c31432; color: white; padding: 15px 30px; text-decoration: none; border-radius: 5px;">
+                                🎁 Ver Mi Amigo Invisible
+                            </a>
+                        </div>
+                        <p>¡Felices fiestas! 🎄</p>
+                    </div>
+                </body>
+                </html>
+                """;
+    }
+
+    private static String buildPasswordFallbackTemplate() {
+        return """
+                <!DOCTYPE html>
+                <html><head><meta charset="UTF-8"></head>
+                <body style="font-family: Arial; padding: 20px; background: #f4f4f4;">
+                    <div style="max-width: 600px; margin: 0 auto; background: white; padding: 30px; border-radius: 10px;">
+                        <h1 style="color: #c31432;">🔑 Tu Contraseña</h1>
+                        <p>¡Hola <strong>{{PARTICIPANT_NAME}}</strong>!</p>
+                        <p>Se ha generado una nueva contraseña para tu cuenta de Amigo Invisible.</p>
+                        <div style="background: #f0f0f0; padding: 20px; border-radius: 5px; margin: 20px 0; text-align: center;">
+                            <p style="margin: 0; font-size: 14px; color: #666;">Tu contraseña es:</p>
+                            <p style="margin: 10px 0 0 0; font-size: 24px; font-weight: bold; color: #c31432; font-family: monospace;">{{PASSWORD}}</p>
+                        </div>
+                        <p>Usa esta contraseña para acceder a tu perfil y ver tu información de tallas.</p>
+                        <div style="text-align: center; margin: 30px 0;">
+                            <a href="{{LOGIN_URL}}" style="background: #c31432; color: white; padding: 15px 30px; text-decoration: none; border-radius: 5px;">
+                                🔐 Iniciar Sesión
+                            </a>
+                        </div>
+                        <p style="color: #666; font-size: 12px;">Por seguridad, te recomendamos cambiar esta contraseña después de iniciar sesión.</p>
+                    </div>
+                </body>
+                </html>
+                """;
+    }
+}
@@ -0,0 +1,187 @@
+package dev.jotxee.secretsanta.service;
+
+import dev.jotxee.secretsanta.dto.RevealResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Caché en memoria de las respuestas de revelación, por token.
+ *
+ * Acotada en número de entradas (se expulsa la usada hace más tiempo) y con caducidad. Si varias peticiones
+ * piden a la vez un token que no está, solo la primera lo carga y las demás esperan a su resultado.
+ * Los errores (token inexistente) no se guardan.
+ *
+ * Cada entrada recuerda su sorteo para poder invalidarlo entero cuando cambian sus datos. Una carga que
+ * empezó antes de una invalidación devuelve su resultado a quien lo pidió, pero no se queda en la caché.
+ */
+@Component
+@Slf4j
+public class RevealCache {
+
+    /**
+     * Resultado de cargar un token: la respuesta y el sorteo al que pertenece.
+     */
+    public record Carga(Long sorteoId, RevealResponse respuesta) {}
+
+    private static final class Entrada {
+        final CompletableFuture<RevealResponse> valor = new CompletableFuture<>();
+        final long version;
+        Long sorteoId;
+        long caducaEn = Long.MAX_VALUE;
+
+        Entrada(long version) {
+            this.version = version;
+        }
+    }
+
+    private final int capacidad;
+    private final long ttlNanos;
+    private final Counter aciertos;
+    private final Counter fallos;
+
+    /** Orden de acceso: la primera entrada es la usada hace más tiempo. Protegido por {@code this}. */
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Set<String>> tokensPorSorteo = new HashMap<>();
+    /** Se incrementa con cada invalidación; las cargas de una versión anterior no se guardan. */
+    private long version;
+
+    public RevealCache(MeterRegistry meterRegistry,
+                       @Value("${app.reveal.cache.capacidad:10000}") int capacidad,
+                       @Value("${app.reveal.cache.ttl:PT10M}") Duration ttl) {
+        this.capacidad = capacidad;
+        this.ttlNanos = ttl.toNanos();
+        this.aciertos = Counter.builder("secretsanta.reveal.cache")
+                .description("Consultas de revelación resueltas desde la caché o cargadas de base de datos")
+                .tag("resultado", "acierto")
+                .register(meterRegistry);
+        this.fallos = Counter.builder("secretsanta.reveal.cache")
+                .description("Consultas de revelación resueltas desde la caché o cargadas de base de datos")
+                .tag("resultado", "fallo")
+                .register(meterRegistry);
+        Gauge.builder("secretsanta.reveal.cache.tamano", this, RevealCache::tamano)
+                .description("Tokens guardados en la caché de revelación")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Devuelve la respuesta del token, cargándola con {@code cargador} si no está o ha caducado.
+     * Las excepciones del cargador se propagan tal cual a todos los que esperaban esa carga.
+     */
+    public RevealResponse obtener(String token, Function<String, Carga> cargador) {
+        if (capacidad <= 0) {
+            fallos.increment();
+            return cargador.apply(token).respuesta();
+        }
+
+        Entrada entrada;
+        boolean cargar = false;
+        synchronized (this) {
+            entrada = entradas.get(token);
+            if (entrada != null && entrada.caducaEn <= System.nanoTime()) {
+                quitar(token, entrada);
+                entrada = null;
+            }
+            if (entrada == null) {
+                entrada = new Entrada(version);
+                entradas.put(token, entrada);
+                expulsarSobrantes();
+                cargar = true;
+            }
+        }
+
+        if (cargar) {
+            fallos.increment();
+            cargar(token, entrada, cargador);
+        } else {
+            aciertos.increment();
+        }
+
+        try {
+            return entrada.valor.join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException runtime ? runtime : ex;
+        }
+    }
+
+    private void cargar(String token, Entrada entrada, Function<String, Carga> cargador) {
+        Carga carga;
+        try {
+            carga = cargador.apply(token);
+        } catch (RuntimeException | Error ex) {
+            synchronized (this) {
+                quitar(token, entrada);
+            }
+            entrada.valor.completeExceptionally(ex);
+            return;
+        }
+
+        synchronized (this) {
+            if (entrada.version != version || entradas.get(token) != entrada) {
+                // Invalidada o expulsada mientras se cargaba
+                quitar(token, entrada);
+            } else {
+                entrada.sorteoId = carga.sorteoId();
+                entrada.caducaEn = System.nanoTime() + ttlNanos;
+                tokensPorSorteo.computeIfAbsent(carga.sorteoId(), id -> new HashSet<>()).add(token);
+            }
+        }
+        entrada.valor.complete(carga.respuesta());
+    }
+
+    /**
+     * Olvida todas las respuestas del sorteo. Llamar después de confirmar la transacción que lo modifica.
+     */
+    public synchronized void invalidarSorteo(Long sorteoId) {
+        version++;
+        Set<String> tokens = tokensPorSorteo.remove(sorteoId);
+        if (tokens != null) {
+            tokens.forEach(entradas::remove);
+            log.debug("Caché de revelación invalidada para el sorteo {} ({} tokens)", sorteoId, tokens.size());
+        }
+    }
+
+    private void expulsarSobrantes() {
+        var it = entradas.entrySet().iterator();
+        while (entradas.size() > capacidad && it.hasNext()) {
+            Map.Entry<String, Entrada> eldest = it.next();
+            it.remove();
+            desindexar(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    /** Requiere tener el monitor. Solo quita la entrada si sigue siendo la misma. */
+    private void quitar(String token, Entrada entrada) {
+        if (entradas.get(token) == entrada) {
+            entradas.remove(token);
+        }
+        desindexar(token, entrada);
+    }
+
+    private void desindexar(String token, Entrada entrada) {
+        if (entrada.sorteoId == null) {
+            return;
+        }
+        Set<String> tokens = tokensPorSorteo.get(entrada.sorteoId);
+        if (tokens != null && tokens.remove(token) && tokens.isEmpty()) {
+            tokensPorSorteo.remove(entrada.sorteoId);
+        }
+    }
+
+    private synchronized double tamano() {
+        return entradas.size();
+    }
+}
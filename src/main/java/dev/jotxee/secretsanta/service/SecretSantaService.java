@@ -6,10 +6,14 @@ import dev.jotxee.secretsanta.entity.Sorteo;
 import dev.jotxee.secretsanta.event.ReenvioEmailParticipanteEvent;
 import dev.jotxee.secretsanta.event.SorteoCreatedEvent;
 import dev.jotxee.secretsanta.repository.PerfilSorteoRepository;
+import dev.jotxee.secretsanta.util.TramoSorteo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 
@@ -19,28 +23,42 @@ public class SecretSantaService {
     
     private final PerfilSorteoRepository perfilSorteoRepository;
     private final ApplicationEventPublisher eventPublisher;
-    
-    @Transactional(readOnly = true)
+    private final EmailOutboxService emailOutboxService;
+    private final RevealCache revealCache;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Datos de la página de revelación de un token. Se sirven desde {@link RevealCache}; solo se abre
+     * transacción para cargar los que no están.
+     *
+     * La latencia se mide en {@code secretsanta.reveal}, por tramo de tamaño del sorteo ({@code desconocido} si el token no existe).
+     */
     public RevealResponse getRevealData(String token) {
-        PerfilSorteo perfil = perfilSorteoRepository.findByToken(token)
-                .orElseThrow(() -> new RuntimeException("Token inválido o no encontrado"));
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        String tramo = "desconocido";
+        try {
+            RevealResponse respuesta = revealCache.obtener(token, t -> transactionTemplate.execute(status -> cargarRevealData(t)));
+            tramo = TramoSorteo.de(respuesta.names().size());
+            return respuesta;
+        } finally {
+            muestra.stop(Timer.builder("secretsanta.reveal")
+                    .description("Latencia de la consulta de revelación, incluida la caché")
+                    .tag(TramoSorteo.TAG, tramo)
+                    .register(meterRegistry));
+        }
+    }
 
-        // Obtener todos los perfiles del sorteo
-        List<PerfilSorteo> perfiles = perfilSorteoRepository.findBySorteoIdWithUsuario(perfil.getSorteo().getId());
+    private RevealCache.Carga cargarRevealData(String token) {
+        PerfilSorteo perfil = perfilSorteoRepository.findByTokenWithAsignado(token)
+                .orElseThrow(() -> new RuntimeException("Token inválido o no encontrado"));
 
-        // Desencriptar el email asignado
-        String asignadoAEmail = perfil.getAsignadoA();
-        String nombreAsignado = perfiles.stream()
-                .filter(p -> p.getUsuario().getEmail().equalsIgnoreCase(asignadoAEmail))
-                .map(p -> p.getUsuario().getNombre())
-                .findFirst()
-                .orElse("(desconocido)");
+        PerfilSorteo asignado = perfil.getAsignado();
+        String nombreAsignado = asignado != null ? asignado.getUsuario().getNombre() : "(desconocido)";
 
-        List<String> allNames = perfiles.stream()
-                .map(p -> p.getUsuario().getNombre())
-                .toList();
+        List<String> allNames = perfilSorteoRepository.findNombresBySorteoId(perfil.getSorteo().getId());
 
-        return new RevealResponse(
+        return new RevealCache.Carga(perfil.getSorteo().getId(), new RevealResponse(
             allNames,
             nombreAsignado,
             perfil.getUsuario().getNombre(),
@@ -48,11 +66,19 @@ public class SecretSantaService {
             perfil.getSorteo().getNombre(),
             perfil.getSorteo().getImporteMinimo(),
             perfil.getSorteo().getImporteMaximo()
-        );
+        ));
     }
     
+    /**
+     * Encola de nuevo el email de resultado de un participante.
+     *
+     * @throws EnvioEmailsSaturadoException si los envíos ya van con retraso
+     */
     @Transactional
     public void reenviarEmailParticipante(Long perfilId) {
+        if (emailOutboxService.hayRetraso()) {
+            throw new EnvioEmailsSaturadoException("Hay demasiados emails pendientes de envío, inténtalo más tarde");
+        }
         PerfilSorteo perfil = perfilSorteoRepository.findById(perfilId)
             .orElseThrow(() -> new RuntimeException("Perfil no encontrado"));
         Sorteo sorteo = perfil.getSorteo();
@@ -64,6 +90,7 @@ public class SecretSantaService {
             perfil.getToken()
         );
         ReenvioEmailParticipanteEvent evento = new ReenvioEmailParticipanteEvent(
+            sorteo.getId(),
             sorteo.getNombre(),
             sorteo.getImporteMinimo(),
             sorteo.getImporteMaximo(),
@@ -1,78 +1,182 @@
 package dev.jotxee.secretsanta.service;
 
+import dev.jotxee.secretsanta.asignacion.AsignacionImposibleException;
+import dev.jotxee.secretsanta.asignacion.ModoAsignacion;
+import dev.jotxee.secretsanta.asignacion.RestriccionesAsignacion;
+import dev.jotxee.secretsanta.asignacion.SolverAsignacion;
+import dev.jotxee.secretsanta.dto.ExclusionFormDTO;
 import dev.jotxee.secretsanta.dto.SorteoFormDTO;
+import dev.jotxee.secretsanta.entity.ExclusionSorteo;
 import dev.jotxee.secretsanta.entity.PerfilSorteo;
 import dev.jotxee.secretsanta.entity.Sorteo;
 import dev.jotxee.secretsanta.entity.Usuario;
 import dev.jotxee.secretsanta.event.SorteoCreatedEvent;
+import dev.jotxee.secretsanta.repository.ExclusionSorteoRepository;
 import dev.jotxee.secretsanta.repository.PerfilSorteoRepository;
 import dev.jotxee.secretsanta.repository.SorteoRepository;
 import dev.jotxee.secretsanta.repository.UsuarioRepository;
+import dev.jotxee.secretsanta.service.PasswordHashingService.CredencialGenerada;
+import dev.jotxee.secretsanta.util.TramoSorteo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SorteoService {
 
+    /** Límite de parámetros por consulta IN (PostgreSQL admite como máximo 65535 por sentencia). */
+    private static final int MAX_EMAILS_POR_CONSULTA = 10_000;
+    private static final String MIGRATION_PLACEHOLDER = "$2b$12$invalidinvalidinvalidinvalidinv";
+
     private final SorteoRepository sorteoRepository;
     private final UsuarioRepository usuarioRepository;
     private final PerfilSorteoRepository perfilSorteoRepository;
+    private final ExclusionSorteoRepository exclusionSorteoRepository;
     private final ApplicationEventPublisher eventPublisher;
-    private final PasswordEncoder passwordEncoder;
-    private final PasswordGeneratorService passwordGeneratorService;
-    private final EmailService emailService;
+    private final PasswordHashingService passwordHashingService;
+    private final EmailOutboxService emailOutboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final RevealCache revealCache;
+    private final MeterRegistry meterRegistry;
     private final SecureRandom secureRandom = new SecureRandom();
 
+    @Value("${app.sorteo.modo-asignacion:DESARREGLO}")
+    private ModoAsignacion modoAsignacion;
+
     /**
      * Crea un sorteo completo con sus participantes y asignaciones de amigo invisible.
+     *
+     * Las contraseñas de los usuarios nuevos se generan y hashean en paralelo antes de abrir
+     * la transacción, de modo que la conexión a base de datos solo se ocupa durante las escrituras.
+     *
+     * Cada fase se mide en {@code secretsanta.sorteo.fase} (validacion, hashing, usuarios, asignacion,
+     * persistencia, eventos y transaccion, que incluye el commit) y el total en {@code secretsanta.sorteo.creacion},
+     * todo etiquetado con el tramo de tamaño del sorteo.
      * 
      * @param sorteoForm Formulario con los datos del sorteo y participantes
      * @return El sorteo creado
-     * @throws IllegalArgumentException si hay menos de 3 participantes
+     * @throws IllegalArgumentException si hay menos de 3 participantes o las restricciones no tienen solución
      */
-    @Transactional
     public Sorteo crearSorteo(SorteoFormDTO sorteoForm) {
-        log.info("Iniciando creación de sorteo: {} con {} participantes", 
-                sorteoForm.getNombre(), sorteoForm.getParticipantes().size());
+        int participantes = sorteoForm.getParticipantes() == null ? 0 : sorteoForm.getParticipantes().size();
+        String tramo = TramoSorteo.de(participantes);
+        log.info("Iniciando creación de sorteo: {} con {} participantes", sorteoForm.getNombre(), participantes);
 
-        // Validaciones
-        validarSorteo(sorteoForm);
+        Timer.Sample total = Timer.start(meterRegistry);
+        String resultado = "error";
+        try {
+            // Validaciones
+            medir("validacion", tramo, () -> validarSorteo(sorteoForm));
 
-        // Crear o recuperar usuarios, y crear perfiles de sorteo
+            // Fuera de la transacción: generar y hashear las contraseñas que van a hacer falta
+            Map<String, CredencialGenerada> credenciales = medir("hashing", tramo, () -> prepararCredenciales(sorteoForm));
+
+            // Transacción corta: solo lecturas indexadas y escrituras en batch (emails incluidos, vía outbox)
+            SorteoGuardado guardado = medir("transaccion", tramo,
+                    () -> transactionTemplate.execute(status -> guardarSorteo(sorteoForm, credenciales, tramo)));
+            revealCache.invalidarSorteo(guardado.sorteo().getId());
+
+            resultado = "ok";
+            log.info("Sorteo creado exitosamente con ID: {}", guardado.sorteo().getId());
+            return guardado.sorteo();
+        } finally {
+            total.stop(Timer.builder("secretsanta.sorteo.creacion")
+                    .description("Tiempo total de creación de un sorteo")
+                    .tag(TramoSorteo.TAG, tramo)
+                    .tag("resultado", resultado)
+                    .register(meterRegistry));
+        }
+    }
+
+    private SorteoGuardado guardarSorteo(SorteoFormDTO sorteoForm, Map<String, CredencialGenerada> credenciales, String tramo) {
         Map<String, String> passwordsPorEmail = new HashMap<>();
-        List<PerfilSorteo> perfiles = crearPerfilesSorteoDesdeFormulario(sorteoForm, passwordsPorEmail);
 
-        // Asignar amigos invisibles
-        asignarAmigosInvisibles(perfiles);
+        // Crear o recuperar usuarios, y crear perfiles de sorteo
+        List<PerfilSorteo> perfiles = medir("usuarios", tramo,
+                () -> crearPerfilesSorteoDesdeFormulario(sorteoForm, credenciales, passwordsPorEmail));
+
+        // Resolver restricciones (grupos, exclusiones, sorteo anterior) y asignar amigos invisibles
+        List<int[]> exclusiones = medir("asignacion", tramo, () -> {
+            Map<String, Integer> indicesPorEmail = indexarPorEmail(perfiles);
+            List<int[]> resueltas = resolverExclusiones(sorteoForm, indicesPorEmail);
+            RestriccionesAsignacion restricciones = construirRestricciones(sorteoForm, perfiles, indicesPorEmail, resueltas);
+            asignarAmigosInvisibles(perfiles, restricciones);
+            return resueltas;
+        });
         log.info("Asignaciones calculadas correctamente para {} perfiles", perfiles.size());
 
         // Guardar en base de datos
-        Sorteo sorteo = guardarSorteoConPerfiles(
-            sorteoForm.getNombre(), 
-            sorteoForm.getNombreInterno(),
-            sorteoForm.getImporteMinimo(),
-            sorteoForm.getImporteMaximo(),
-            perfiles
-        );
+        Sorteo sorteo = medir("persistencia", tramo, () -> {
+            Sorteo guardado = guardarSorteoConPerfiles(
+                sorteoForm.getNombre(),
+                sorteoForm.getNombreInterno(),
+                sorteoForm.getImporteMinimo(),
+                sorteoForm.getImporteMaximo(),
+                sorteoForm.getSorteoAnteriorId(),
+                perfiles
+            );
+            guardarExclusiones(guardado, perfiles, exclusiones);
 
-        // Enviar emails con contraseñas (solo a nuevos usuarios)
-        enviarPasswordsANuevosUsuarios(perfiles, passwordsPorEmail);
+            // Encolar emails con contraseñas (solo a nuevos usuarios): se envían si el sorteo se confirma
+            encolarPasswordsANuevosUsuarios(perfiles, passwordsPorEmail);
+            return guardado;
+        });
 
         // Publicar evento
-        publicarEventoSorteoCreado(sorteo, perfiles);
+        medir("eventos", tramo, () -> publicarEventoSorteoCreado(sorteo, perfiles));
 
-        log.info("Sorteo creado exitosamente con ID: {}", sorteo.getId());
-        return sorteo;
+        return new SorteoGuardado(sorteo, perfiles);
+    }
+
+    private <T> T medir(String fase, String tramo, Supplier<T> paso) {
+        return temporizadorFase(fase, tramo).record(paso);
+    }
+
+    private void medir(String fase, String tramo, Runnable paso) {
+        temporizadorFase(fase, tramo).record(paso);
+    }
+
+    private Timer temporizadorFase(String fase, String tramo) {
+        return Timer.builder("secretsanta.sorteo.fase")
+                .description("Tiempo de cada fase de la creación de un sorteo")
+                .tag("fase", fase)
+                .tag(TramoSorteo.TAG, tramo)
+                .register(meterRegistry);
+    }
+
+    private record SorteoGuardado(Sorteo sorteo, List<PerfilSorteo> perfiles) {}
+
+    /**
+     * Averigua qué participantes necesitan contraseña (usuarios nuevos o migrados con placeholder)
+     * y las genera y hashea en paralelo.
+     */
+    private Map<String, CredencialGenerada> prepararCredenciales(SorteoFormDTO sorteoForm) {
+        List<String> emails = sorteoForm.getParticipantes().stream()
+                .map(dto -> normalizarEmail(dto.getEmail()))
+                .toList();
+        Map<String, Usuario> existentes = buscarUsuariosPorEmail(emails);
+
+        List<String> sinPassword = emails.stream()
+                .filter(email -> necesitaPassword(existentes.get(email)))
+                .toList();
+        return passwordHashingService.generarCredenciales(sinPassword);
+    }
+
+    private static boolean necesitaPassword(Usuario usuario) {
+        return usuario == null || MIGRATION_PLACEHOLDER.equals(usuario.getPassword());
     }
 
     /**
@@ -86,110 +190,206 @@ public class SorteoService {
         if (sorteoForm.getParticipantes().size() < 3) {
             throw new IllegalArgumentException("Se necesitan al menos 3 participantes para crear un sorteo");
         }
+
+        long emailsDistintos = sorteoForm.getParticipantes().stream()
+                .map(dto -> normalizarEmail(dto.getEmail()))
+                .distinct()
+                .count();
+        if (emailsDistintos < sorteoForm.getParticipantes().size()) {
+            throw new IllegalArgumentException("Hay emails repetidos en la lista de participantes");
+        }
     }
 
     /**
      * Crea los perfiles de sorteo desde el formulario.
      * Si el usuario ya existe (por email), se reutiliza. Si no, se crea nuevo con contraseña.
      * Si el usuario existe pero tiene el password placeholder de migración, se regenera y envía.
+     *
+     * Los usuarios existentes se buscan con una única consulta por lotes de emails y los nuevos
+     * se insertan juntos con saveAll (ids de secuencia, por lo que Hibernate agrupa los INSERT en batch).
+     * Los usuarios migrados modificados se actualizan por dirty checking en el mismo flush.
+     * Las contraseñas llegan ya hasheadas; solo si otro proceso cambió los usuarios entre medias
+     * se hashea aquí alguna suelta.
      */
-    private List<PerfilSorteo> crearPerfilesSorteoDesdeFormulario(SorteoFormDTO sorteoForm, Map<String, String> passwordsPorEmail) {
+    private List<PerfilSorteo> crearPerfilesSorteoDesdeFormulario(SorteoFormDTO sorteoForm,
+                                                                 Map<String, CredencialGenerada> credenciales,
+                                                                 Map<String, String> passwordsPorEmail) {
         List<PerfilSorteo> perfiles = new ArrayList<>();
-        final String MIGRATION_PLACEHOLDER = "$2b$12$invalidinvalidinvalidinvalidinv";
+
+        Map<String, Usuario> existentes = buscarUsuariosPorEmail(sorteoForm.getParticipantes().stream()
+                .map(dto -> normalizarEmail(dto.getEmail()))
+                .toList());
+        List<Usuario> nuevos = new ArrayList<>();
         
         sorteoForm.getParticipantes().forEach(dto -> {
-            String email = dto.getEmail().trim().toLowerCase();
-            
-            // Buscar o crear usuario
-            Usuario usuario = usuarioRepository.findByEmail(email)
-                .map(existingUser -> {
-                    // Usuario existe - verificar si tiene password placeholder de migración
-                    if (MIGRATION_PLACEHOLDER.equals(existingUser.getPassword())) {
-                        // Regenerar contraseña para usuarios migrados con placeholder
-                        String plainPassword = passwordGeneratorService.generatePassword();
-                        passwordsPorEmail.put(email, plainPassword);
-                        
-                        existingUser.setPassword(passwordEncoder.encode(plainPassword));
-                        Usuario updated = usuarioRepository.save(existingUser);
-                        log.info("Password regenerado para usuario migrado: {}", updated.getNombre());
-                        return updated;
-                    }
-                    log.debug("Usuario existente reutilizado: {}", existingUser.getNombre());
-                    return existingUser;
-                })
-                .orElseGet(() -> {
-                    // Usuario nuevo - crear con contraseña
-                    String plainPassword = passwordGeneratorService.generatePassword();
-                    passwordsPorEmail.put(email, plainPassword); // Guardar para enviar por email después
-                    
-                    Usuario nuevoUsuario = new Usuario();
-                    nuevoUsuario.setEmail(email);
-                    nuevoUsuario.setNombre(dto.getNombre().trim());
-                    nuevoUsuario.setGenero(dto.getGenero());
-                    nuevoUsuario.setPassword(passwordEncoder.encode(plainPassword));
-                    nuevoUsuario.setRole("USER");
-                    nuevoUsuario.setFechaCreacion(LocalDateTime.now());
-                    
-                    Usuario saved = usuarioRepository.save(nuevoUsuario);
-                    log.info("Nuevo usuario creado: {}", saved.getNombre());
-                    return saved;
-                });
+            String email = normalizarEmail(dto.getEmail());
+            Usuario usuario = existentes.get(email);
+
+            if (usuario == null) {
+                // Usuario nuevo - crear con contraseña
+                CredencialGenerada credencial = credencialPara(email, credenciales);
+                passwordsPorEmail.put(email, credencial.passwordPlano()); // Guardar para enviar por email después
+
+                usuario = new Usuario();
+                usuario.setEmail(email);
+                usuario.setNombre(dto.getNombre().trim());
+                usuario.setGenero(dto.getGenero());
+                usuario.setPassword(credencial.passwordHash());
+                usuario.setRole("USER");
+                usuario.setFechaCreacion(LocalDateTime.now());
+                nuevos.add(usuario);
+            } else if (MIGRATION_PLACEHOLDER.equals(usuario.getPassword())) {
+                // Regenerar contraseña para usuarios migrados con placeholder
+                CredencialGenerada credencial = credencialPara(email, credenciales);
+                passwordsPorEmail.put(email, credencial.passwordPlano());
+
+                usuario.setPassword(credencial.passwordHash());
+                log.info("Password regenerado para usuario migrado: {}", usuario.getNombre());
+            } else {
+                log.debug("Usuario existente reutilizado: {}", usuario.getNombre());
+            }
 
             // Crear perfil de sorteo
             PerfilSorteo perfil = new PerfilSorteo();
             perfil.setUsuario(usuario);
             perfil.setToken(UUID.randomUUID().toString());
+            perfil.setGrupo(normalizarGrupo(dto.getGrupo()));
             // sorteo se asignará al guardar
             
             perfiles.add(perfil);
         });
 
+        usuarioRepository.saveAll(nuevos);
+        log.info("{} usuarios nuevos creados, {} reutilizados", nuevos.size(), existentes.size());
+
         return perfiles;
     }
 
+    private CredencialGenerada credencialPara(String email, Map<String, CredencialGenerada> credenciales) {
+        CredencialGenerada credencial = credenciales.get(email);
+        if (credencial == null) {
+            log.warn("Usuario modificado durante la creación del sorteo; se hashea su contraseña dentro de la transacción");
+            credencial = passwordHashingService.generarCredencial();
+        }
+        return credencial;
+    }
+
     /**
-     * Algoritmo para asignar amigos invisibles de forma aleatoria.
-     * Garantiza que nadie se tenga a sí mismo.
+     * Busca los usuarios existentes con una consulta IN por lotes (la comparación se hace sobre el email cifrado).
      */
-    private void asignarAmigosInvisibles(List<PerfilSorteo> perfiles) {
-        int size = perfiles.size();
-        
-        // Crear lista de índices para barajar
-        List<Integer> indices = new ArrayList<>();
-        for (int i = 0; i < size; i++) {
-            indices.add(i);
+    private Map<String, Usuario> buscarUsuariosPorEmail(List<String> emails) {
+        Map<String, Usuario> usuarios = new HashMap<>();
+        for (int desde = 0; desde < emails.size(); desde += MAX_EMAILS_POR_CONSULTA) {
+            List<String> lote = emails.subList(desde, Math.min(desde + MAX_EMAILS_POR_CONSULTA, emails.size()));
+            usuarioRepository.findByEmailIn(lote).forEach(usuario -> usuarios.put(usuario.getEmail(), usuario));
+        }
+        return usuarios;
+    }
+
+    private Map<String, Integer> indexarPorEmail(List<PerfilSorteo> perfiles) {
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < perfiles.size(); i++) {
+            indices.put(perfiles.get(i).getUsuario().getEmail(), i);
+        }
+        return indices;
+    }
+
+    /**
+     * Traduce las exclusiones del formulario (por email) a parejas de índices de participantes.
+     */
+    private List<int[]> resolverExclusiones(SorteoFormDTO sorteoForm, Map<String, Integer> indicesPorEmail) {
+        if (sorteoForm.getExclusiones() == null) {
+            return List.of();
         }
 
-        boolean asignacionValida;
-        int intentos = 0;
-        final int MAX_INTENTOS = 100;
+        List<int[]> exclusiones = new ArrayList<>();
+        for (ExclusionFormDTO exclusion : sorteoForm.getExclusiones()) {
+            if (!StringUtils.hasText(exclusion.getEmailA()) && !StringUtils.hasText(exclusion.getEmailB())) {
+                continue; // fila vacía del formulario
+            }
+            Integer a = indicesPorEmail.get(normalizarEmail(exclusion.getEmailA()));
+            Integer b = indicesPorEmail.get(normalizarEmail(exclusion.getEmailB()));
+            if (a == null || b == null) {
+                throw new IllegalArgumentException("Las exclusiones deben referirse a emails de participantes del sorteo");
+            }
+            if (a.equals(b)) {
+                throw new IllegalArgumentException("Una exclusión debe indicar dos participantes distintos");
+            }
+            exclusiones.add(new int[] {a, b});
+        }
+        return exclusiones;
+    }
 
-        do {
-            Collections.shuffle(indices, secureRandom);
-            asignacionValida = true;
+    /**
+     * Construye el modelo de restricciones del sorteo: grupos de cada participante,
+     * exclusiones explícitas y parejas del sorteo anterior (si se indicó).
+     */
+    private RestriccionesAsignacion construirRestricciones(SorteoFormDTO sorteoForm, List<PerfilSorteo> perfiles,
+                                                         Map<String, Integer> indicesPorEmail, List<int[]> exclusiones) {
+        RestriccionesAsignacion.Builder builder = RestriccionesAsignacion.builder(perfiles.size());
+
+        Map<String, Integer> grupos = new HashMap<>();
+        for (int i = 0; i < perfiles.size(); i++) {
+            String grupo = perfiles.get(i).getGrupo();
+            if (grupo != null) {
+                builder.grupo(i, grupos.computeIfAbsent(grupo, g -> grupos.size()));
+            }
+        }
 
-            // Verificar que nadie se tenga a sí mismo
-            for (int i = 0; i < size; i++) {
-                if (indices.get(i) == i) {
-                    asignacionValida = false;
-                    break;
+        exclusiones.forEach(pareja -> builder.excluirPareja(pareja[0], pareja[1]));
+
+        Long sorteoAnteriorId = sorteoForm.getSorteoAnteriorId();
+        if (sorteoAnteriorId != null) {
+            if (!sorteoRepository.existsById(sorteoAnteriorId)) {
+                throw new IllegalArgumentException("El sorteo anterior indicado no existe");
+            }
+            List<PerfilSorteo> anteriores = perfilSorteoRepository.findBySorteoIdWithUsuario(sorteoAnteriorId);
+            Map<Long, Integer> indicesPorPerfilAnterior = new HashMap<>();
+            for (PerfilSorteo anterior : anteriores) {
+                Integer indice = indicesPorEmail.get(anterior.getUsuario().getEmail());
+                if (indice != null) {
+                    indicesPorPerfilAnterior.put(anterior.getId(), indice);
                 }
             }
+            int repetidas = 0;
+            for (PerfilSorteo anterior : anteriores) {
+                Integer dador = indicesPorPerfilAnterior.get(anterior.getId());
+                // getId() de la referencia no la inicializa: no hace falta cargar ni descifrar nada más
+                Integer receptor = anterior.getAsignado() == null ? null : indicesPorPerfilAnterior.get(anterior.getAsignado().getId());
+                if (dador != null && receptor != null) {
+                    builder.prohibir(dador, receptor);
+                    repetidas++;
+                }
+            }
+            log.debug("{} parejas del sorteo anterior {} excluidas", repetidas, sorteoAnteriorId);
+        }
 
-            intentos++;
-            if (intentos >= MAX_INTENTOS) {
-                log.error("No se pudo generar una asignación válida después de {} intentos", MAX_INTENTOS);
-                throw new RuntimeException("Error al generar asignaciones de amigo invisible");
+        return builder.build();
+    }
+
+    /**
+     * Asigna amigos invisibles de forma aleatoria con el motor del modo configurado.
+     * Garantiza que nadie se tenga a sí mismo y que se respetan las restricciones del sorteo.
+     */
+    private void asignarAmigosInvisibles(List<PerfilSorteo> perfiles, RestriccionesAsignacion restricciones) {
+        int[] asignados;
+        try {
+            asignados = SolverAsignacion.resolver(restricciones, modoAsignacion, secureRandom);
+        } catch (AsignacionImposibleException e) {
+            if (e.participante() == AsignacionImposibleException.NINGUNO) {
+                throw new IllegalArgumentException(e.getMessage(), e);
             }
-        } while (!asignacionValida);
+            String nombre = perfiles.get(e.participante()).getUsuario().getNombre();
+            throw new IllegalArgumentException(e.getMessage() + " (no hay a quién asignar a " + nombre + ")", e);
+        }
 
-        // Asignar los emails según el orden barajado
-        for (int i = 0; i < size; i++) {
-            int asignadoIndex = indices.get(i);
-            perfiles.get(i).setAsignadoA(perfiles.get(asignadoIndex).getUsuario().getEmail());
+        for (int i = 0; i < asignados.length; i++) {
+            PerfilSorteo receptor = perfiles.get(asignados[i]);
+            perfiles.get(i).setAsignado(receptor);
+            perfiles.get(i).setAsignadoA(receptor.getUsuario().getEmail());
         }
 
-        log.debug("Asignaciones generadas en {} intentos", intentos);
+        log.debug("Asignaciones generadas en modo {}", modoAsignacion);
     }
 
     /**
@@ -197,7 +397,7 @@ public class SorteoService {
      */
     private Sorteo guardarSorteoConPerfiles(String nombreSorteo, String nombreInterno, 
                                              Double importeMinimo, Double importeMaximo,
-                                             List<PerfilSorteo> perfiles) {
+                                             Long sorteoAnteriorId, List<PerfilSorteo> perfiles) {
         // Crear y guardar el sorteo
         Sorteo sorteo = new Sorteo();
         sorteo.setNombre(nombreSorteo);
@@ -206,6 +406,7 @@ public class SorteoService {
         sorteo.setImporteMaximo(importeMaximo);
         sorteo.setFechaCreacion(LocalDateTime.now());
         sorteo.setActivo(true);
+        sorteo.setSorteoAnteriorId(sorteoAnteriorId);
         sorteo = sorteoRepository.save(sorteo);
 
         // Asignar el sorteo a todos los perfiles
@@ -221,16 +422,36 @@ public class SorteoService {
     }
 
     /**
-     * Envía las contraseñas por email solo a los usuarios nuevos o migrados con placeholder.
+     * Guarda las exclusiones explícitas del sorteo junto a sus perfiles.
+     */
+    private void guardarExclusiones(Sorteo sorteo, List<PerfilSorteo> perfiles, List<int[]> exclusiones) {
+        if (exclusiones.isEmpty()) {
+            return;
+        }
+        exclusionSorteoRepository.saveAll(exclusiones.stream()
+                .map(pareja -> new ExclusionSorteo(sorteo, perfiles.get(pareja[0]), perfiles.get(pareja[1])))
+                .toList());
+    }
+
+    private static String normalizarEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase();
+    }
+
+    private static String normalizarGrupo(String grupo) {
+        return StringUtils.hasText(grupo) ? grupo.trim().toLowerCase() : null;
+    }
+
+    /**
+     * Encola las contraseñas por email solo para los usuarios nuevos o migrados con placeholder.
      * Los usuarios existentes con contraseñas válidas no reciben email.
      */
-    private void enviarPasswordsANuevosUsuarios(List<PerfilSorteo> perfiles, Map<String, String> passwordsPorEmail) {
+    private void encolarPasswordsANuevosUsuarios(List<PerfilSorteo> perfiles, Map<String, String> passwordsPorEmail) {
         perfiles.forEach(perfil -> {
             String email = perfil.getUsuario().getEmail();
             if (passwordsPorEmail.containsKey(email)) {
                 String plainPassword = passwordsPorEmail.get(email);
-                emailService.enviarPassword(email, perfil.getUsuario().getNombre(), plainPassword);
-                log.info("Contraseña enviada a usuario: {}", perfil.getUsuario().getNombre());
+                emailOutboxService.encolarPassword(email, perfil.getUsuario().getNombre(), plainPassword);
+                log.info("Contraseña encolada para usuario: {}", perfil.getUsuario().getNombre());
             } else {
                 log.debug("Usuario existente con contraseña válida, no se envía email: {}", perfil.getUsuario().getNombre());
             }
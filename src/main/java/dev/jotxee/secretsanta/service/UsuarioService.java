@@ -1,10 +1,8 @@
 package dev.jotxee.secretsanta.service;
 
 import dev.jotxee.secretsanta.entity.PerfilSorteo;
-import dev.jotxee.secretsanta.entity.Sorteo;
 import dev.jotxee.secretsanta.entity.Usuario;
 import dev.jotxee.secretsanta.repository.PerfilSorteoRepository;
-import dev.jotxee.secretsanta.repository.SorteoRepository;
 import dev.jotxee.secretsanta.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,9 +10,6 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -25,10 +20,9 @@ public class UsuarioService {
     
     private final UsuarioRepository usuarioRepository;
     private final PerfilSorteoRepository perfilSorteoRepository;
-    private final SorteoRepository sorteoRepository;
     private final PasswordEncoder passwordEncoder;
     private final PasswordGeneratorService passwordGeneratorService;
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
 
     @Transactional
     public String regenerarYEnviarPassword(String email) {
@@ -39,7 +33,7 @@ public class UsuarioService {
         usuario.setPassword(passwordEncoder.encode(plainPassword));
         usuarioRepository.save(usuario);
 
-        emailService.enviarPassword(usuario.getEmail(), usuario.getNombre(), plainPassword);
+        emailOutboxService.encolarPassword(usuario.getEmail(), usuario.getNombre(), plainPassword);
         log.info("Contraseña regenerada y enviada para usuario: {}", usuario.getNombre());
 
         return plainPassword;
@@ -70,15 +64,6 @@ public class UsuarioService {
             .orElseThrow(() -> new RuntimeException(USUARIO_NO_ENCONTRADO));
     }
 
-    /**
-     * Obtiene un usuario por ID
-     */
-    @Transactional(readOnly = true)
-    public Usuario obtenerPorId(Long usuarioId) {
-        return usuarioRepository.findById(usuarioId)
-            .orElseThrow(() -> new RuntimeException(USUARIO_NO_ENCONTRADO));
-    }
-
     /**
      * Obtiene un perfil de sorteo por ID
      */
@@ -87,77 +72,4 @@ public class UsuarioService {
         return perfilSorteoRepository.findById(perfilId)
             .orElseThrow(() -> new RuntimeException(PERFIL_NO_ENCONTRADO));
     }
-
-    /**
-     * Obtiene todos los perfiles de sorteo de un usuario
-     */
-    @Transactional(readOnly = true)
-    public List<PerfilSorteo> obtenerPerfilesDelUsuario(Long usuarioId) {
-        List<PerfilSorteo> perfiles = perfilSorteoRepository.findByUsuarioId(usuarioId);
-        
-        // Ordenar por fecha de creación del sorteo descendente (más reciente primero)
-        perfiles.sort((p1, p2) -> p2.getSorteo().getFechaCreacion().compareTo(p1.getSorteo().getFechaCreacion()));
-        
-        return perfiles;
-    }
-
-    /**
-     * Obtiene todos los perfiles de sorteo de un usuario por email
-     */
-    @Transactional(readOnly = true)
-    public List<PerfilSorteo> obtenerPerfilesDelUsuarioPorEmail(String email) {
-        Usuario usuario = obtenerPorEmail(email);
-        List<PerfilSorteo> perfiles = perfilSorteoRepository.findByUsuarioId(usuario.getId());
-        
-        // Ordenar por fecha de creación del sorteo descendente (más reciente primero)
-        perfiles.sort((p1, p2) -> p2.getSorteo().getFechaCreacion().compareTo(p1.getSorteo().getFechaCreacion()));
-        
-        return perfiles;
-    }
-
-    /**
-     * Obtiene todos los sorteos en los que participa un usuario
-     */
-    @Transactional(readOnly = true)
-    public List<Sorteo> obtenerSorteosDelUsuario(Long usuarioId) {
-        List<PerfilSorteo> perfiles = perfilSorteoRepository.findByUsuarioId(usuarioId);
-        
-        // Obtener los IDs únicos de sorteos
-        List<Long> sorteoIds = perfiles.stream()
-            .map(PerfilSorteo::getSorteo)
-            .filter(sorteo -> sorteo != null)
-            .map(Sorteo::getId)
-            .distinct()
-            .collect(Collectors.toList());
-
-        // Cargar sorteos con sus perfiles eagerly para evitar LazyInitializationException
-        List<Sorteo> sorteos = sorteoIds.isEmpty() ? List.of() : sorteoRepository.findByIdInWithPerfiles(sorteoIds);
-        
-        // Ordenar por fecha de creación descendente (más reciente primero)
-        sorteos.sort((s1, s2) -> s2.getFechaCreacion().compareTo(s1.getFechaCreacion()));
-        
-        return sorteos;
-    }
-
-    /**
-     * Obtiene todos los perfiles de un sorteo específico
-     */
-    @Transactional(readOnly = true)
-    public List<PerfilSorteo> obtenerPerfilesPorSorteo(Long sorteoId) {
-        return perfilSorteoRepository.findBySorteoIdWithUsuario(sorteoId);
-    }
-    
-    /**
-     * Obtiene los sorteos compartidos entre dos usuarios de forma optimizada.
-     * Usa una única consulta SQL en lugar de múltiples consultas y filtrado en memoria.
-     */
-    @Transactional(readOnly = true)
-    public List<Sorteo> obtenerSorteosCompartidos(Long usuario1Id, Long usuario2Id) {
-        List<Sorteo> sorteos = sorteoRepository.findSharedSorteos(usuario1Id, usuario2Id);
-        
-        // Ordenar por fecha de creación descendente (más reciente primero)
-        sorteos.sort((s1, s2) -> s2.getFechaCreacion().compareTo(s1.getFechaCreacion()));
-        
-        return sorteos;
-    }
 }
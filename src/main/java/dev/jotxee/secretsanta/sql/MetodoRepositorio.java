@@ -0,0 +1,53 @@
+package dev.jotxee.secretsanta.sql;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Método de repositorio que se está ejecutando en el hilo actual ({@code PerfilSorteoRepository.findVistaMiPerfil}),
+ * para atribuirle las sentencias SQL que lanza. Lo rellena {@link Interceptor}, añadido a todos los repositorios
+ * por {@link MonitorSqlConfig}.
+ */
+public final class MetodoRepositorio {
+
+    /** Sentencias fuera de cualquier repositorio: flush al confirmar transacciones de servicio, JdbcTemplate... */
+    public static final String NINGUNO = "ninguno";
+
+    private static final ThreadLocal<String> ACTUAL = new ThreadLocal<>();
+
+    private MetodoRepositorio() {
+    }
+
+    public static String actual() {
+        String metodo = ACTUAL.get();
+        return metodo != null ? metodo : NINGUNO;
+    }
+
+    /**
+     * Primer consejo del proxy del repositorio, por fuera de su transacción: el flush al confirmarla
+     * también cuenta para el método.
+     */
+    static final class Interceptor implements MethodInterceptor {
+
+        private final String repositorio;
+
+        Interceptor(Class<?> repositorio) {
+            this.repositorio = repositorio.getSimpleName();
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            String anterior = ACTUAL.get();
+            ACTUAL.set(repositorio + "." + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                if (anterior != null) {
+                    ACTUAL.set(anterior);
+                } else {
+                    ACTUAL.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package dev.jotxee.secretsanta.sql;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Mide cada sentencia SQL que pasa por el {@code DataSource} (ver {@link MonitorSqlConfig}).
+ *
+ * <ul>
+ *   <li>{@code secretsanta.sql{metodo,tipo}}: latencia por método de repositorio ({@link MetodoRepositorio}) y tipo de sentencia.</li>
+ *   <li>Las que superan {@code app.sql.monitor.umbral-lenta} se registran en el log y se guardan las últimas
+ *       {@code app.sql.monitor.lentas-guardadas} para el endpoint {@code /actuator/sql}. Se guarda la forma de la
+ *       sentencia (SQL con {@code ?} y tipos de los parámetros), nunca los valores: los emails cifrados son datos personales.</li>
+ *   <li>Por petición HTTP ({@link SqlPorPeticionFilter}): sentencias y tiempo total de SQL.</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.sql.monitor", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class MonitorSql implements QueryExecutionListener {
+
+    private static final int LONGITUD_MAXIMA_SQL = 2000;
+    /** Por si alguna sentencia lleva literales en lugar de parámetros. */
+    private static final Pattern LITERAL_TEXTO = Pattern.compile("'(?:[^']|'')*'");
+
+    /**
+     * Sentencia que superó el umbral, sin valores de parámetros.
+     */
+    public record SentenciaLenta(Instant instante, String metodo, String tipo, long milisegundos,
+                                 String sql, String parametros, int lote) {}
+
+    private record Clave(String metodo, String tipo) {}
+
+    /** Acumulado de la petición HTTP en curso en el hilo. */
+    private static final class Peticion {
+        int sentencias;
+        long nanos;
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final long umbralNanos;
+    private final int lentasGuardadas;
+
+    private final Map<Clave, Timer> temporizadores = new ConcurrentHashMap<>();
+    private final Map<String, Counter> contadoresLentas = new ConcurrentHashMap<>();
+    /** Protegido por sí misma; la más reciente al final. */
+    private final ArrayDeque<SentenciaLenta> lentas = new ArrayDeque<>();
+
+    private final ThreadLocal<Long> inicio = new ThreadLocal<>();
+    private final ThreadLocal<Peticion> peticion = new ThreadLocal<>();
+
+    public MonitorSql(MeterRegistry meterRegistry,
+                      @Value("${app.sql.monitor.umbral-lenta:PT0.2S}") Duration umbralLenta,
+                      @Value("${app.sql.monitor.lentas-guardadas:100}") int lentasGuardadas) {
+        this.meterRegistry = meterRegistry;
+        this.umbralNanos = umbralLenta.toNanos();
+        this.lentasGuardadas = lentasGuardadas;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        inicio.set(System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long desde = inicio.get();
+        if (desde == null || queryInfoList.isEmpty()) {
+            return;
+        }
+        inicio.remove();
+        long nanos = System.nanoTime() - desde;
+        String metodo = MetodoRepositorio.actual();
+        String sql = queryInfoList.getFirst().getQuery();
+        String tipo = tipo(sql);
+
+        temporizadores.computeIfAbsent(new Clave(metodo, tipo), clave -> Timer.builder("secretsanta.sql")
+                        .description("Latencia de las sentencias SQL por método de repositorio")
+                        .tag("metodo", clave.metodo())
+                        .tag("tipo", clave.tipo())
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        Peticion actual = peticion.get();
+        if (actual != null) {
+            actual.sentencias++;
+            actual.nanos += nanos;
+        }
+
+        if (nanos >= umbralNanos) {
+            registrarLenta(metodo, tipo, nanos, queryInfoList, execInfo);
+        }
+    }
+
+    private void registrarLenta(String metodo, String tipo, long nanos, List<QueryInfo> consultas, ExecutionInfo execInfo) {
+        String sql = forma(consultas.getFirst().getQuery());
+        String parametros = parametros(consultas.getFirst());
+        int lote = execInfo.isBatch() ? execInfo.getBatchSize() : 1;
+        long ms = TimeUnit.NANOSECONDS.toMillis(nanos);
+
+        contadoresLentas.computeIfAbsent(metodo, m -> Counter.builder("secretsanta.sql.lentas")
+                        .description("Sentencias SQL por encima de app.sql.monitor.umbral-lenta")
+                        .tag("metodo", m)
+                        .register(meterRegistry))
+                .increment();
+        log.warn("🐢 SQL lenta ({} ms) en {}: {} {}{}", ms, metodo, sql, parametros, lote > 1 ? " x" + lote : "");
+
+        synchronized (lentas) {
+            lentas.addLast(new SentenciaLenta(Instant.now(), metodo, tipo, ms, sql, parametros, lote));
+            while (lentas.size() > lentasGuardadas) {
+                lentas.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Últimas sentencias lentas, la más reciente primero.
+     */
+    public List<SentenciaLenta> lentas() {
+        synchronized (lentas) {
+            return new ArrayList<>(lentas.reversed());
+        }
+    }
+
+    void iniciarPeticion() {
+        peticion.set(new Peticion());
+    }
+
+    /**
+     * Cierra el acumulado de la petición del hilo y lo registra con la ruta ({@code uri}) que la atendió.
+     */
+    void terminarPeticion(String uri) {
+        Peticion actual = peticion.get();
+        peticion.remove();
+        if (actual == null) {
+            return;
+        }
+        DistributionSummary.builder("secretsanta.sql.peticion.sentencias")
+                .description("Sentencias SQL por petición HTTP")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(actual.sentencias);
+        Timer.builder("secretsanta.sql.peticion")
+                .description("Tiempo total en SQL por petición HTTP")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(actual.nanos, TimeUnit.NANOSECONDS);
+    }
+
+    static String tipo(String sql) {
+        String inicioSql = sql.stripLeading().toLowerCase(Locale.ROOT);
+        for (String tipo : List.of("select", "insert", "update", "delete")) {
+            if (inicioSql.startsWith(tipo)) {
+                return tipo;
+            }
+        }
+        return inicioSql.startsWith("with") ? "select" : "otra";
+    }
+
+    static String forma(String sql) {
+        String sinLiterales = LITERAL_TEXTO.matcher(sql).replaceAll("?");
+        return sinLiterales.length() > LONGITUD_MAXIMA_SQL
+                ? sinLiterales.substring(0, LONGITUD_MAXIMA_SQL) + "…"
+                : sinLiterales;
+    }
+
+    /**
+     * Tipos de los parámetros del primer juego del lote, p. ej. {@code (String, Long, Null)}.
+     */
+    private static String parametros(QueryInfo consulta) {
+        List<List<ParameterSetOperation>> juegos = consulta.getParametersList();
+        if (juegos.isEmpty()) {
+            return "()";
+        }
+        return juegos.getFirst().stream()
+                .map(operacion -> operacion.getMethod().getName().replaceFirst("^set", ""))
+                .collect(Collectors.joining(", ", "(", ")"));
+    }
+}
@@ -0,0 +1,122 @@
+package dev.jotxee.secretsanta.sql;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Engancha {@link MonitorSql}: envuelve el {@code DataSource} con datasource-proxy para ver cada sentencia
+ * y añade {@link MetodoRepositorio.Interceptor} a todos los repositorios de Spring Data para saber de qué
+ * método viene. {@code unwrap} sigue llegando a la conexión real (el COPY de {@code GeneradorDataset} lo usa)
+ * y al {@code DataSource} original: las métricas {@code hikaricp.*} y el health de Spring Boot localizan el pool
+ * de Hikari con {@code unwrap(HikariDataSource.class)} a través del proxy.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.sql.monitor", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class MonitorSqlConfig {
+
+    @Bean
+    static BeanPostProcessor dataSourceMonitorizado(ObjectProvider<MonitorSql> monitorSql) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    ProxyDataSource proxy = ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new MonitorDiferido(monitorSql))
+                            .build();
+                    DataSourceMonitorizado monitorizado = new DataSourceMonitorizado(dataSource);
+                    monitorizado.setProxyConfig(proxy.getProxyConfig());
+                    return monitorizado;
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    static BeanPostProcessor repositoriosConMetodo() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositorio) -> proxyFactory.addAdvice(0,
+                                    new MetodoRepositorio.Interceptor(repositorio.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Proxy que además se deja desenvolver hasta el {@code DataSource} original aunque este no lo resuelva
+     * por sí mismo en {@code unwrap}.
+     */
+    static final class DataSourceMonitorizado extends ProxyDataSource {
+
+        DataSourceMonitorizado(DataSource original) {
+            super(original);
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return iface.isInstance(getDataSource()) ? iface.cast(getDataSource()) : super.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(getDataSource()) || super.isWrapperFor(iface);
+        }
+    }
+
+    /**
+     * El {@code DataSource} se crea antes que el registro de métricas: el monitor se resuelve en la primera sentencia.
+     */
+    private static final class MonitorDiferido implements QueryExecutionListener {
+
+        private final ObjectProvider<MonitorSql> proveedor;
+        private volatile MonitorSql monitor;
+
+        MonitorDiferido(ObjectProvider<MonitorSql> proveedor) {
+            this.proveedor = proveedor;
+        }
+
+        private MonitorSql monitor() {
+            MonitorSql actual = monitor;
+            if (actual == null) {
+                actual = proveedor.getIfAvailable();
+                monitor = actual;
+            }
+            return actual;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            MonitorSql actual = monitor();
+            if (actual != null) {
+                actual.beforeQuery(execInfo, queryInfoList);
+            }
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            MonitorSql actual = monitor;
+            if (actual != null) {
+                actual.afterQuery(execInfo, queryInfoList);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package dev.jotxee.secretsanta.sql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code /actuator/sql}: tiempo en SQL por método de repositorio (de más a menos tiempo total desde el arranque)
+ * y las últimas sentencias lentas de {@link MonitorSql}. Solo para administradores (ver SecurityConfig).
+ */
+@Component
+@Endpoint(id = "sql")
+@ConditionalOnProperty(prefix = "app.sql.monitor", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class SqlEndpoint {
+
+    private final MeterRegistry meterRegistry;
+    private final MonitorSql monitorSql;
+
+    /**
+     * {@code maximoMs} es el máximo reciente (ventana de Micrometer), no desde el arranque.
+     */
+    public record MetodoSql(String metodo, String tipo, long ejecuciones, double totalMs, double mediaMs, double maximoMs) {
+
+        static MetodoSql de(Timer timer) {
+            return new MetodoSql(timer.getId().getTag("metodo"), timer.getId().getTag("tipo"), timer.count(),
+                    timer.totalTime(TimeUnit.MILLISECONDS), timer.mean(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    public record InformeSql(List<MetodoSql> metodos, List<MonitorSql.SentenciaLenta> lentas) {}
+
+    @ReadOperation
+    public InformeSql informe() {
+        List<MetodoSql> metodos = meterRegistry.find("secretsanta.sql").timers().stream()
+                .map(MetodoSql::de)
+                .sorted(Comparator.comparingDouble(MetodoSql::totalMs).reversed())
+                .toList();
+        return new InformeSql(metodos, monitorSql.lentas());
+    }
+}
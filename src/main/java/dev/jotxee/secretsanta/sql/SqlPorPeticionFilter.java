@@ -0,0 +1,43 @@
+package dev.jotxee.secretsanta.sql;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Acumula las sentencias SQL de cada petición y las registra por ruta ({@code secretsanta.sql.peticion*}).
+ * Va antes que la cadena de seguridad para contar también las consultas del login. Lo que se escribe en
+ * otro hilo (respuestas en streaming) no se cuenta aquí, solo en {@code secretsanta.sql}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(prefix = "app.sql.monitor", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class SqlPorPeticionFilter extends OncePerRequestFilter {
+
+    private static final String SIN_RUTA = "sin_ruta";
+
+    private final MonitorSql monitorSql;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        monitorSql.iniciarPeticion();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Object ruta = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            monitorSql.terminarPeticion(ruta != null ? ruta.toString() : SIN_RUTA);
+        }
+    }
+}
@@ -1,36 +1,270 @@
 package dev.jotxee.secretsanta.util;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
 import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Supplier;
 
+/**
+ * Cifrado de emails compartido por toda la aplicación.
+ *
+ * Los valores nuevos se cifran con AES-GCM y un IV aleatorio, con el prefijo {@code v2:}: el mismo email
+ * da un texto cifrado distinto cada vez y cualquier manipulación se detecta al descifrar. Los valores
+ * antiguos (AES/ECB, sin prefijo) se siguen pudiendo descifrar hasta que el backfill los reescriba.
+ *
+ * Como el texto cifrado ya no sirve para buscar, {@link #indice(String)} calcula un índice ciego
+ * (HMAC-SHA256 con su propia clave) que se guarda en una columna indexada.
+ *
+ * Cada hilo reutiliza sus instancias de {@link Cipher} y {@link Mac} (no son thread-safe, pero sí reutilizables).
+ *
+ * Las operaciones se miden en {@code secretsanta.crypto.email} por operación; las de colecciones se etiquetan
+ * con el tramo de tamaño del lote, que es el del sorteo cuando se cifran o buscan todos sus participantes.
+ */
+@Component
 public class EmailCryptoService {
-    private final SecretKeySpec secretKey;
+
+    public static final String PREFIJO_V2 = "v2:";
+
+    private static final String TRANSFORMACION_GCM = "AES/GCM/NoPadding";
+    private static final String TRANSFORMACION_LEGADO = "AES/ECB/PKCS5Padding";
+    private static final int LONGITUD_IV = 12;
+    private static final int BITS_TAG = 128;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final SecretKeySpec claveGcm;
+    private final ThreadLocal<Cipher> gcm;
+    private final ThreadLocal<Cipher> descifradorLegado;
+    private final ThreadLocal<Cipher> cifradorLegado;
+    private final ThreadLocal<Mac> hmacIndice;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer tiempoCifrar;
+    private final Timer tiempoDescifrar;
+    private final Timer tiempoIndice;
 
     public EmailCryptoService(String key) {
-        byte[] keyBytes = key.getBytes();
+        this(key, "", Metrics.globalRegistry);
+    }
+
+    /**
+     * @param key      clave de cifrado ({@code app.email-crypto-key})
+     * @param indexKey clave del índice ciego; si se deja vacía se deriva de {@code key}
+     */
+    @Autowired
+    public EmailCryptoService(@Value("${app.email-crypto-key}") String key,
+                              @Value("${app.email-index-key:}") String indexKey,
+                              MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.tiempoCifrar = temporizador("cifrar", TramoSorteo.SIN_SORTEO);
+        this.tiempoDescifrar = temporizador("descifrar", TramoSorteo.SIN_SORTEO);
+        this.tiempoIndice = temporizador("indice", TramoSorteo.SIN_SORTEO);
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+        // Clave heredada: los primeros 16 bytes de la clave configurada, como se cifraba antes
         byte[] keyPadded = new byte[16];
         System.arraycopy(keyBytes, 0, keyPadded, 0, Math.min(keyBytes.length, 16));
-        this.secretKey = new SecretKeySpec(keyPadded, "AES");
+        SecretKeySpec claveLegado = new SecretKeySpec(keyPadded, "AES");
+
+        // Claves nuevas derivadas con HMAC para que cifrado e índice nunca compartan clave
+        this.claveGcm = new SecretKeySpec(derivar(keyBytes, "secretsanta-email-gcm"), "AES");
+        SecretKeySpec claveIndice = new SecretKeySpec(StringUtils.hasText(indexKey)
+                ? derivar(indexKey.getBytes(StandardCharsets.UTF_8), "secretsanta-email-indice")
+                : derivar(keyBytes, "secretsanta-email-indice"), "HmacSHA256");
+
+        this.gcm = ThreadLocal.withInitial(() -> crearCipher(TRANSFORMACION_GCM));
+        this.descifradorLegado = ThreadLocal.withInitial(() -> iniciar(crearCipher(TRANSFORMACION_LEGADO), Cipher.DECRYPT_MODE, claveLegado));
+        this.cifradorLegado = ThreadLocal.withInitial(() -> iniciar(crearCipher(TRANSFORMACION_LEGADO), Cipher.ENCRYPT_MODE, claveLegado));
+        this.hmacIndice = ThreadLocal.withInitial(() -> crearMac(claveIndice));
+    }
+
+    private static byte[] derivar(byte[] material, String etiqueta) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(material, "HmacSHA256"));
+            return mac.doFinal(etiqueta.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo derivar la clave " + etiqueta, e);
+        }
+    }
+
+    private static Cipher crearCipher(String transformacion) {
+        try {
+            return Cipher.getInstance(transformacion);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo inicializar " + transformacion, e);
+        }
+    }
+
+    private static Cipher iniciar(Cipher cipher, int modo, SecretKeySpec clave) {
+        try {
+            cipher.init(modo, clave);
+            return cipher;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo inicializar " + cipher.getAlgorithm(), e);
+        }
+    }
+
+    private static Mac crearMac(SecretKeySpec clave) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(clave);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo inicializar HmacSHA256", e);
+        }
+    }
+
+    private Timer temporizador(String operacion, String tramo) {
+        return Timer.builder("secretsanta.crypto.email")
+                .description("Tiempo de cifrado, descifrado e índice ciego de emails")
+                .tag("operacion", operacion)
+                .tag(TramoSorteo.TAG, tramo)
+                .register(meterRegistry);
+    }
+
+    private <T> List<T> medirLote(String operacion, int tamano, Supplier<List<T>> lote) {
+        return temporizador(operacion, TramoSorteo.de(tamano)).record(lote);
     }
 
     public String encrypt(String strToEncrypt) {
+        return tiempoCifrar.record(() -> cifrar(strToEncrypt));
+    }
+
+    private String cifrar(String strToEncrypt) {
         try {
-            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-            return Base64.getEncoder().encodeToString(cipher.doFinal(strToEncrypt.getBytes("UTF-8")));
+            byte[] iv = new byte[LONGITUD_IV];
+            secureRandom.nextBytes(iv);
+            Cipher cipher = gcm.get();
+            cipher.init(Cipher.ENCRYPT_MODE, claveGcm, new GCMParameterSpec(BITS_TAG, iv));
+            byte[] cifrado = cipher.doFinal(strToEncrypt.getBytes(StandardCharsets.UTF_8));
+
+            byte[] salida = ByteBuffer.allocate(iv.length + cifrado.length).put(iv).put(cifrado).array();
+            return PREFIJO_V2 + Base64.getEncoder().encodeToString(salida);
         } catch (Exception e) {
+            gcm.remove();
             throw new RuntimeException("Error encrypting email", e);
         }
     }
 
     public String decrypt(String strToDecrypt) {
+        return tiempoDescifrar.record(() -> descifrar(strToDecrypt));
+    }
+
+    private String descifrar(String strToDecrypt) {
+        if (esLegado(strToDecrypt)) {
+            return decryptLegado(strToDecrypt);
+        }
+        try {
+            byte[] datos = Base64.getDecoder().decode(strToDecrypt.substring(PREFIJO_V2.length()));
+            Cipher cipher = gcm.get();
+            cipher.init(Cipher.DECRYPT_MODE, claveGcm, new GCMParameterSpec(BITS_TAG, datos, 0, LONGITUD_IV));
+            return new String(cipher.doFinal(datos, LONGITUD_IV, datos.length - LONGITUD_IV), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            gcm.remove();
+            throw new RuntimeException("Error decrypting email", e);
+        }
+    }
+
+    /**
+     * Indica si el valor está cifrado con el esquema anterior (AES/ECB) y debe reescribirse.
+     */
+    public static boolean esLegado(String cifrado) {
+        return !cifrado.startsWith(PREFIJO_V2);
+    }
+
+    private String decryptLegado(String strToDecrypt) {
         try {
-            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-            cipher.init(Cipher.DECRYPT_MODE, secretKey);
-            return new String(cipher.doFinal(Base64.getDecoder().decode(strToDecrypt)));
+            return new String(descifradorLegado.get().doFinal(Base64.getDecoder().decode(strToDecrypt)), StandardCharsets.UTF_8);
         } catch (Exception e) {
+            // Tras un fallo no se reutiliza el descifrador: el siguiente uso en este hilo crea uno nuevo
+            descifradorLegado.remove();
             throw new RuntimeException("Error decrypting email", e);
         }
     }
+
+    /**
+     * Cifrado determinista del esquema anterior. Solo sirve para encontrar filas que el backfill aún no ha migrado.
+     */
+    public String encryptLegado(String email) {
+        try {
+            return Base64.getEncoder().encodeToString(cifradorLegado.get().doFinal(email.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            cifradorLegado.remove();
+            throw new RuntimeException("Error encrypting email", e);
+        }
+    }
+
+    /**
+     * Índice ciego del email: HMAC-SHA256 en hexadecimal (64 caracteres). Es determinista, así que sirve
+     * para buscar e imponer unicidad, pero no permite recuperar el email sin la clave del índice.
+     * Se calcula sobre el email exacto, igual que comparaba antes el texto cifrado.
+     */
+    public String indice(String email) {
+        return tiempoIndice.record(() -> calcularIndice(email));
+    }
+
+    /**
+     * Referencia corta para los logs: los primeros caracteres del índice ciego. Permite seguir el mismo email
+     * entre líneas de log sin escribirlo ni cifrarlo en cada llamada.
+     */
+    public String referencia(String email) {
+        return email != null ? indice(email).substring(0, 12) : "-";
+    }
+
+    private String calcularIndice(String email) {
+        byte[] hmac = hmacIndice.get().doFinal(email.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hmac);
+    }
+
+    /**
+     * Cifra una colección de emails, en el orden de entrada.
+     */
+    public List<String> encryptAll(Collection<String> emails) {
+        return medirLote("cifrar", emails.size(), () -> {
+            List<String> cifrados = new ArrayList<>(emails.size());
+            for (String email : emails) {
+                cifrados.add(email != null ? cifrar(email) : null);
+            }
+            return cifrados;
+        });
+    }
+
+    /**
+     * Descifra una colección de valores, en el orden de entrada.
+     */
+    public List<String> decryptAll(Collection<String> cifrados) {
+        return medirLote("descifrar", cifrados.size(), () -> {
+            List<String> emails = new ArrayList<>(cifrados.size());
+            for (String cifrado : cifrados) {
+                emails.add(cifrado != null ? descifrar(cifrado) : null);
+            }
+            return emails;
+        });
+    }
+
+    /**
+     * Índice ciego de una colección de emails, en el orden de entrada.
+     */
+    public List<String> indiceAll(Collection<String> emails) {
+        return medirLote("indice", emails.size(), () -> emails.stream().map(this::calcularIndice).toList());
+    }
 }
@@ -0,0 +1,97 @@
+package dev.jotxee.secretsanta.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plantilla HTML precompilada con marcadores {@code {{NOMBRE}}}.
+ *
+ * Al compilarla se parte en tramos de texto fijo y huecos, de modo que renderizar es una sola pasada
+ * que concatena tramos y valores en un buffer reutilizado por hilo (en lugar de un {@code String.replace}
+ * por marcador sobre todo el HTML). {@link #fijar(Map)} rellena una parte de los huecos y devuelve otra
+ * plantilla con los tramos contiguos ya fusionados: sirve para resolver una sola vez lo que es común
+ * a todos los destinatarios de un sorteo.
+ *
+ * Los valores se insertan tal cual: quien llama es responsable de escaparlos.
+ */
+public final class PlantillaHtml {
+
+    private static final Pattern MARCADOR = Pattern.compile("\\{\\{([A-Z0-9_]+)}}");
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(16 * 1024));
+
+    private final String[] tramos;
+    private final String[] huecos;
+    private final int longitudFija;
+
+    private PlantillaHtml(String[] tramos, String[] huecos) {
+        this.tramos = tramos;
+        this.huecos = huecos;
+        this.longitudFija = Arrays.stream(tramos).mapToInt(String::length).sum();
+    }
+
+    public static PlantillaHtml compilar(String html) {
+        List<String> tramos = new ArrayList<>();
+        List<String> huecos = new ArrayList<>();
+        Matcher matcher = MARCADOR.matcher(html);
+        int desde = 0;
+        while (matcher.find()) {
+            tramos.add(html.substring(desde, matcher.start()));
+            huecos.add(matcher.group(1));
+            desde = matcher.end();
+        }
+        tramos.add(html.substring(desde));
+        return new PlantillaHtml(tramos.toArray(String[]::new), huecos.toArray(String[]::new));
+    }
+
+    /**
+     * Devuelve una plantilla con los huecos indicados ya rellenos. Los huecos sin valor se mantienen.
+     */
+    public PlantillaHtml fijar(Map<String, String> valores) {
+        List<String> nuevosTramos = new ArrayList<>();
+        List<String> nuevosHuecos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder(tramos[0]);
+        for (int i = 0; i < huecos.length; i++) {
+            String valor = valores.get(huecos[i]);
+            if (valor != null) {
+                actual.append(valor).append(tramos[i + 1]);
+            } else {
+                nuevosTramos.add(actual.toString());
+                nuevosHuecos.add(huecos[i]);
+                actual.setLength(0);
+                actual.append(tramos[i + 1]);
+            }
+        }
+        nuevosTramos.add(actual.toString());
+        return new PlantillaHtml(nuevosTramos.toArray(String[]::new), nuevosHuecos.toArray(String[]::new));
+    }
+
+    /**
+     * Renderiza la plantilla en una sola pasada. Los huecos sin valor quedan vacíos.
+     */
+    public String renderizar(Map<String, String> valores) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        buffer.ensureCapacity(longitudFija + 256 * huecos.length);
+
+        buffer.append(tramos[0]);
+        for (int i = 0; i < huecos.length; i++) {
+            String valor = valores.get(huecos[i]);
+            if (valor != null) {
+                buffer.append(valor);
+            }
+            buffer.append(tramos[i + 1]);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Nombres de los huecos que quedan por rellenar, en orden de aparición.
+     */
+    public List<String> huecos() {
+        return List.of(huecos);
+    }
+}
@@ -0,0 +1,34 @@
+package dev.jotxee.secretsanta.util;
+
+/**
+ * Tramos de tamaño de sorteo para etiquetar métricas ({@code tamano}). Son pocos y fijos para que el
+ * número de series no crezca con cada sorteo.
+ */
+public final class TramoSorteo {
+
+    public static final String TAG = "tamano";
+    /** Operaciones que no pertenecen a un sorteo concreto (un email suelto, un envío de contraseña...). */
+    public static final String SIN_SORTEO = "sin_sorteo";
+
+    private TramoSorteo() {
+    }
+
+    /**
+     * Ej: 8 -> "1-10", 120 -> "51-200", 5000 -> "1001+".
+     */
+    public static String de(long participantes) {
+        if (participantes <= 10) {
+            return "1-10";
+        }
+        if (participantes <= 50) {
+            return "11-50";
+        }
+        if (participantes <= 200) {
+            return "51-200";
+        }
+        if (participantes <= 1000) {
+            return "201-1000";
+        }
+        return "1001+";
+    }
+}
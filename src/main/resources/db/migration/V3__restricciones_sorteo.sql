@@ -0,0 +1,23 @@
+-- V3: Restricciones de asignación (grupos, exclusiones y no repetir parejas del sorteo anterior)
+
+-- 1. Grupo (hogar, equipo...) de cada participante: nadie regala a alguien de su mismo grupo
+ALTER TABLE perfil_sorteo ADD COLUMN IF NOT EXISTS grupo VARCHAR(100);
+
+-- 2. Sorteo cuyas parejas no deben repetirse
+ALTER TABLE sorteos ADD COLUMN IF NOT EXISTS sorteo_anterior_id BIGINT;
+ALTER TABLE sorteos ADD CONSTRAINT fk_sorteo_anterior
+    FOREIGN KEY (sorteo_anterior_id) REFERENCES sorteos(id) ON DELETE SET NULL;
+
+-- 3. Parejas que no pueden regalarse entre sí
+CREATE TABLE IF NOT EXISTS sorteo_exclusiones (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    sorteo_id BIGINT NOT NULL,
+    perfil_a_id BIGINT NOT NULL,
+    perfil_b_id BIGINT NOT NULL,
+    CONSTRAINT fk_exclusion_sorteo FOREIGN KEY (sorteo_id) REFERENCES sorteos(id) ON DELETE CASCADE,
+    CONSTRAINT fk_exclusion_perfil_a FOREIGN KEY (perfil_a_id) REFERENCES perfil_sorteo(id) ON DELETE CASCADE,
+    CONSTRAINT fk_exclusion_perfil_b FOREIGN KEY (perfil_b_id) REFERENCES perfil_sorteo(id) ON DELETE CASCADE,
+    CONSTRAINT uk_exclusion_pareja UNIQUE (perfil_a_id, perfil_b_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_sorteo_exclusiones_sorteo ON sorteo_exclusiones(sorteo_id);
@@ -0,0 +1,16 @@
+-- V4: Secuencias para que Hibernate pueda agrupar INSERT en batch
+-- Con IDENTITY, Hibernate necesita ejecutar cada INSERT al momento para conocer el id.
+-- Con una secuencia de incremento 100 (optimizador pooled) reserva 100 ids por llamada
+-- y envía los INSERT de usuarios, perfiles y exclusiones en lotes JDBC.
+--
+-- NOTA: las columnas siguen siendo IDENTITY por compatibilidad, pero todas las inserciones
+-- deben tomar el id de estas secuencias (nunca del valor por defecto de la columna).
+
+CREATE SEQUENCE IF NOT EXISTS usuarios_seq START WITH 1 INCREMENT BY 100;
+CREATE SEQUENCE IF NOT EXISTS perfil_sorteo_seq START WITH 1 INCREMENT BY 100;
+CREATE SEQUENCE IF NOT EXISTS sorteo_exclusiones_seq START WITH 1 INCREMENT BY 100;
+
+-- Continuar por encima de los ids existentes (con margen de un bloque completo)
+SELECT setval('usuarios_seq', (SELECT COALESCE(MAX(id), 0) FROM usuarios) + 100);
+SELECT setval('perfil_sorteo_seq', (SELECT COALESCE(MAX(id), 0) FROM perfil_sorteo) + 100);
+SELECT setval('sorteo_exclusiones_seq', (SELECT COALESCE(MAX(id), 0) FROM sorteo_exclusiones) + 100);
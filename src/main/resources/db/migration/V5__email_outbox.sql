@@ -0,0 +1,26 @@
+-- V5: Bandeja de salida de emails (patrón outbox)
+-- Los emails se escriben en la misma transacción que el sorteo y un proceso periódico los envía.
+-- Cada nodo reclama filas con FOR UPDATE SKIP LOCKED y las reserva durante un tiempo (siguiente_intento),
+-- así varios nodos pueden vaciar la tabla a la vez sin pisarse.
+
+CREATE SEQUENCE IF NOT EXISTS email_outbox_seq START WITH 1 INCREMENT BY 100;
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGINT PRIMARY KEY,
+    tipo VARCHAR(30) NOT NULL,
+    estado VARCHAR(20) NOT NULL,
+    destinatario VARCHAR(500) NOT NULL,       -- cifrado como el resto de emails
+    nombre VARCHAR(255) NOT NULL,
+    sorteo_id BIGINT,                         -- solo RESULTADO_SORTEO
+    token VARCHAR(255),                       -- solo RESULTADO_SORTEO
+    password_cifrada VARCHAR(500),            -- solo PASSWORD; se borra al enviar o descartar
+    intentos INT NOT NULL DEFAULT 0,
+    siguiente_intento TIMESTAMP NOT NULL,
+    ultimo_error VARCHAR(1000),
+    fecha_creacion TIMESTAMP NOT NULL,
+    fecha_envio TIMESTAMP
+);
+
+-- Solo interesan las filas pendientes: índice parcial para que el sondeo no recorra el histórico
+CREATE INDEX IF NOT EXISTS idx_email_outbox_pendientes
+    ON email_outbox (siguiente_intento) WHERE estado = 'PENDIENTE';
@@ -0,0 +1,17 @@
+-- V6: Cifrado aleatorio de emails (AES-GCM, prefijo "v2:") con índice ciego para las búsquedas
+-- Con cifrado aleatorio el mismo email produce textos distintos, así que ni el UNIQUE ni el índice
+-- sobre usuarios.email sirven para buscar. email_hash guarda un HMAC del email y asume ambos papeles.
+--
+-- La columna se rellena desde la aplicación (EmailIndiceBackfill), que además reescribe los valores
+-- antiguos en el formato nuevo. Mientras quedan filas sin email_hash, las búsquedas prueban también
+-- con el cifrado antiguo usando idx_usuarios_email.
+
+ALTER TABLE usuarios ADD COLUMN IF NOT EXISTS email_hash VARCHAR(64);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_usuarios_email_hash ON usuarios(email_hash);
+
+-- La unicidad pasa a email_hash: con cifrado aleatorio este UNIQUE ya no detecta duplicados
+ALTER TABLE usuarios DROP CONSTRAINT IF EXISTS usuarios_email_key;
+
+-- "v2:" + base64(IV + email + tag) ocupa hasta ~380 caracteres para un email de 254
+ALTER TABLE usuarios ALTER COLUMN email TYPE VARCHAR(512);
+ALTER TABLE perfil_sorteo ALTER COLUMN asignado_a TYPE VARCHAR(512);
@@ -0,0 +1,19 @@
+-- V7: La asignación pasa a ser una referencia al perfil del receptor en lugar de su email cifrado
+-- Resolver "a quién regalo" era descifrar asignado_a y compararlo con el email de cada perfil del sorteo;
+-- con asignado_perfil_id es un único join por clave primaria.
+--
+-- Las asignaciones forman ciclos (A regala a B y B a A), así que no hay orden de INSERT que respete la FK:
+-- se comprueba al confirmar la transacción. Los valores se rellenan en V8 (Java, necesita la clave de cifrado).
+
+ALTER TABLE perfil_sorteo ADD COLUMN IF NOT EXISTS asignado_perfil_id BIGINT;
+
+ALTER TABLE perfil_sorteo
+    ADD CONSTRAINT fk_perfil_sorteo_asignado_perfil
+    FOREIGN KEY (asignado_perfil_id) REFERENCES perfil_sorteo(id)
+    ON DELETE SET NULL
+    DEFERRABLE INITIALLY DEFERRED;
+
+CREATE INDEX IF NOT EXISTS idx_perfil_sorteo_asignado_perfil ON perfil_sorteo(asignado_perfil_id);
+
+-- Ya no se busca por el email cifrado (además, con cifrado aleatorio el índice no servía)
+DROP INDEX IF EXISTS idx_perfil_sorteo_asignado;
@@ -0,0 +1,5 @@
+-- V9: Paginación por cursor de los participantes de un sorteo (WHERE sorteo_id = ? AND id > ? ORDER BY id)
+-- El índice compuesto sirve también para todo lo que usaba idx_perfil_sorteo_sorteo.
+
+CREATE INDEX IF NOT EXISTS idx_perfil_sorteo_sorteo_id ON perfil_sorteo(sorteo_id, id);
+DROP INDEX IF EXISTS idx_perfil_sorteo_sorteo;
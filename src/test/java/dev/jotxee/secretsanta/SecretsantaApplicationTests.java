@@ -1,15 +1,29 @@
 package dev.jotxee.secretsanta;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
 import org.springframework.test.context.ActiveProfiles;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 @SpringBootTest
 @ActiveProfiles("test")
 class SecretsantaApplicationTests {
 
+	@Autowired
+	private ApplicationContext context;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void mantieneElExecutorDeBootAdemasDelDeEmail() {
+		// Sin él, MVC async (StreamingResponseBody) usaría un SimpleAsyncTaskExecutor sin límite
+		assertTrue(context.containsBean("applicationTaskExecutor"));
+		assertTrue(context.containsBean("mailExecutor"));
+	}
+
 }
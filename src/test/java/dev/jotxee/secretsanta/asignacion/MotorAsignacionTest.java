@@ -0,0 +1,85 @@
+package dev.jotxee.secretsanta.asignacion;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MotorAsignacionTest {
+
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Test
+    void desarregloNuncaAsignaAUnoMismo() {
+        for (int n = 2; n <= 50; n++) {
+            for (int repeticion = 0; repeticion < 100; repeticion++) {
+                verificarPermutacionSinPuntosFijos(ModoAsignacion.DESARREGLO.motor().asignar(n, random));
+            }
+        }
+    }
+
+    @Test
+    void cicloUnicoRecorreATodosLosParticipantes() {
+        for (int n = 2; n <= 50; n++) {
+            for (int repeticion = 0; repeticion < 100; repeticion++) {
+                int[] asignados = ModoAsignacion.CICLO_UNICO.motor().asignar(n, random);
+                verificarPermutacionSinPuntosFijos(asignados);
+                assertEquals(n, longitudCiclo(asignados, 0));
+            }
+        }
+    }
+
+    @Test
+    void desarregloEsUniformeParaCuatroParticipantes() {
+        // Hay 9 desarreglos de 4 elementos: cada uno debe salir ~1/9 de las veces
+        Map<String, Integer> frecuencias = new HashMap<>();
+        int muestras = 90_000;
+        for (int i = 0; i < muestras; i++) {
+            frecuencias.merge(Arrays.toString(ModoAsignacion.DESARREGLO.motor().asignar(4, random)), 1, Integer::sum);
+        }
+
+        assertEquals(9, frecuencias.size());
+        frecuencias.values().forEach(veces -> assertTrue(Math.abs(veces - muestras / 9) < 600,
+                "Frecuencia fuera de rango: " + veces));
+    }
+
+    @Test
+    void soportaSorteosMuyGrandes() {
+        for (ModoAsignacion modo : ModoAsignacion.values()) {
+            verificarPermutacionSinPuntosFijos(modo.motor().asignar(200_000, random));
+        }
+    }
+
+    @Test
+    void rechazaMenosDeDosParticipantes() {
+        assertThrows(IllegalArgumentException.class, () -> ModoAsignacion.DESARREGLO.motor().asignar(1, random));
+        assertThrows(IllegalArgumentException.class, () -> ModoAsignacion.CICLO_UNICO.motor().asignar(0, random));
+    }
+
+    private static void verificarPermutacionSinPuntosFijos(int[] asignados) {
+        boolean[] recibe = new boolean[asignados.length];
+        for (int i = 0; i < asignados.length; i++) {
+            assertNotEquals(i, asignados[i], "Participante asignado a sí mismo");
+            assertFalse(recibe[asignados[i]], "Participante asignado dos veces");
+            recibe[asignados[i]] = true;
+        }
+    }
+
+    private static int longitudCiclo(int[] asignados, int inicio) {
+        int longitud = 0;
+        int actual = inicio;
+        do {
+            actual = asignados[actual];
+            longitud++;
+        } while (actual != inicio);
+        return longitud;
+    }
+}
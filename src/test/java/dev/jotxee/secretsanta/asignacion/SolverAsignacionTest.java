@@ -0,0 +1,117 @@
+package dev.jotxee.secretsanta.asignacion;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolverAsignacionTest {
+
+    private final SplittableRandom random = new SplittableRandom(7);
+
+    @Test
+    void respetaGruposExclusionesYParejasAnteriores() {
+        int n = 2_000;
+        RestriccionesAsignacion.Builder builder = RestriccionesAsignacion.builder(n);
+        for (int i = 0; i < n; i++) {
+            builder.grupo(i, i % 40);
+            builder.prohibir(i, (i + 7) % n);
+        }
+        for (int i = 0; i + 1 < n; i += 2) {
+            builder.excluirPareja(i, i + 1);
+        }
+        RestriccionesAsignacion restricciones = builder.build();
+
+        for (ModoAsignacion modo : ModoAsignacion.values()) {
+            int[] asignados = SolverAsignacion.resolver(restricciones, modo, random);
+            verificar(asignados, restricciones);
+            if (modo == ModoAsignacion.CICLO_UNICO) {
+                assertEquals(n, longitudCiclo(asignados));
+            }
+        }
+    }
+
+    @Test
+    void dosGruposIgualesObliganAAlternar() {
+        int n = 1_000;
+        RestriccionesAsignacion.Builder builder = RestriccionesAsignacion.builder(n);
+        for (int i = 0; i < n; i++) {
+            builder.grupo(i, i < n / 2 ? 0 : 1);
+        }
+        RestriccionesAsignacion restricciones = builder.build();
+
+        verificar(SolverAsignacion.resolver(restricciones, ModoAsignacion.DESARREGLO, random), restricciones);
+        int[] ciclo = SolverAsignacion.resolver(restricciones, ModoAsignacion.CICLO_UNICO, random);
+        verificar(ciclo, restricciones);
+        assertEquals(n, longitudCiclo(ciclo));
+    }
+
+    @Test
+    void detectaGrupoDemasiadoGrande() {
+        RestriccionesAsignacion.Builder builder = RestriccionesAsignacion.builder(10);
+        for (int i = 0; i < 6; i++) {
+            builder.grupo(i, 0);
+        }
+        assertThrows(AsignacionImposibleException.class,
+                () -> SolverAsignacion.resolver(builder.build(), ModoAsignacion.DESARREGLO, random));
+    }
+
+    @Test
+    void detectaExclusionesSinSolucion() {
+        // Con 3 participantes, si 0 y 1 no pueden regalarse ambos tendrían que regalar a 2
+        RestriccionesAsignacion restricciones = RestriccionesAsignacion.builder(3).excluirPareja(0, 1).build();
+        for (ModoAsignacion modo : ModoAsignacion.values()) {
+            assertThrows(AsignacionImposibleException.class, () -> SolverAsignacion.resolver(restricciones, modo, random));
+        }
+    }
+
+    @Test
+    void rechazaCicloUnicoSiSoloCabenParejas() {
+        // 0 y 1 solo pueden regalarse entre sí, igual que 2 y 3: hay desarreglo pero no ciclo único
+        RestriccionesAsignacion restricciones = RestriccionesAsignacion.builder(4)
+                .excluirPareja(0, 2).excluirPareja(0, 3)
+                .excluirPareja(1, 2).excluirPareja(1, 3)
+                .build();
+
+        verificar(SolverAsignacion.resolver(restricciones, ModoAsignacion.DESARREGLO, random), restricciones);
+        assertThrows(AsignacionImposibleException.class,
+                () -> SolverAsignacion.resolver(restricciones, ModoAsignacion.CICLO_UNICO, random));
+    }
+
+    @Test
+    void encuentraElCicloUnicoAunqueNoSeUnaConUnIntercambio() {
+        // La reparación puede dejar 0↔2 y 1↔3, que ningún intercambio simple une; 0→1→2→3→0 sí está permitido
+        RestriccionesAsignacion restricciones = RestriccionesAsignacion.builder(4)
+                .prohibir(0, 3).prohibir(1, 0).prohibir(2, 1).prohibir(3, 2)
+                .build();
+
+        for (int intento = 0; intento < 50; intento++) {
+            int[] ciclo = SolverAsignacion.resolver(restricciones, ModoAsignacion.CICLO_UNICO, random);
+            verificar(ciclo, restricciones);
+            assertEquals(4, longitudCiclo(ciclo));
+        }
+    }
+
+    private static void verificar(int[] asignados, RestriccionesAsignacion restricciones) {
+        boolean[] recibe = new boolean[asignados.length];
+        for (int i = 0; i < asignados.length; i++) {
+            assertTrue(restricciones.permitido(i, asignados[i]), "Pareja prohibida asignada");
+            assertFalse(recibe[asignados[i]], "Participante asignado dos veces");
+            recibe[asignados[i]] = true;
+        }
+    }
+
+    private static int longitudCiclo(int[] asignados) {
+        int longitud = 0;
+        int actual = 0;
+        do {
+            actual = asignados[actual];
+            longitud++;
+        } while (actual != 0);
+        return longitud;
+    }
+}
@@ -0,0 +1,28 @@
+package dev.jotxee.secretsanta.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CalibradorBCryptTest {
+
+    @Test
+    void noBajaDelMinimoAunqueNoAlcanceElObjetivo() {
+        assertEquals(5, CalibradorBCrypt.calibrar(Duration.ZERO, 5, 8));
+    }
+
+    @Test
+    void noPasaDelMaximoAunqueSobreTiempo() {
+        assertEquals(6, CalibradorBCrypt.calibrar(Duration.ofHours(1), 4, 6));
+    }
+
+    @Test
+    void rechazaRangosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> CalibradorBCrypt.calibrar(Duration.ZERO, 3, 10));
+        assertThrows(IllegalArgumentException.class, () -> CalibradorBCrypt.calibrar(Duration.ZERO, 10, 32));
+        assertThrows(IllegalArgumentException.class, () -> CalibradorBCrypt.calibrar(Duration.ZERO, 12, 10));
+    }
+}
@@ -0,0 +1,148 @@
+package dev.jotxee.secretsanta.controller;
+
+import dev.jotxee.secretsanta.dto.ParticipanteFormDTO;
+import dev.jotxee.secretsanta.dto.SorteoFormDTO;
+import dev.jotxee.secretsanta.entity.PerfilSorteo;
+import dev.jotxee.secretsanta.entity.Usuario;
+import dev.jotxee.secretsanta.repository.PerfilSorteoRepository;
+import dev.jotxee.secretsanta.security.ParticipanteUserDetails;
+import dev.jotxee.secretsanta.service.SorteoService;
+import dev.jotxee.secretsanta.support.RegistroSql;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Número de sentencias SQL de los endpoints más usados. Si uno de estos tests falla, el mensaje lista las
+ * sentencias ejecutadas: o se ha colado un N+1 o el cambio es intencionado y hay que actualizar la cifra.
+ */
+@SpringBootTest(properties = RegistroSql.PROPIEDAD)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConsultasSqlTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SorteoService sorteoService;
+
+    @Autowired
+    private PerfilSorteoRepository perfilSorteoRepository;
+
+    private List<PerfilSorteo> perfiles;
+
+    /**
+     * Cada test parte de un sorteo propio de 3 participantes. Crearlo también deja inicializado el estado
+     * perezoso que haría variar las cifras (comprobar si quedan emails sin índice ciego, secuencias).
+     */
+    @BeforeEach
+    void crearSorteo() {
+        var sorteo = sorteoService.crearSorteo(formulario("ana", "luis", "eva"));
+        perfiles = perfilSorteoRepository.findBySorteoId(sorteo.getId());
+    }
+
+    private static SorteoFormDTO formulario(String... nombres) {
+        String sufijo = UUID.randomUUID().toString().substring(0, 8);
+        List<ParticipanteFormDTO> participantes = new ArrayList<>();
+        for (String nombre : nombres) {
+            ParticipanteFormDTO participante = new ParticipanteFormDTO();
+            participante.setNombre(nombre);
+            participante.setEmail(nombre + "-" + sufijo + "@test.local");
+            participantes.add(participante);
+        }
+        SorteoFormDTO form = new SorteoFormDTO();
+        form.setNombre("Sorteo " + sufijo);
+        form.setImporteMinimo(10.0);
+        form.setImporteMaximo(20.0);
+        form.setParticipantes(participantes);
+        return form;
+    }
+
+    private static ParticipanteUserDetails admin() {
+        Usuario admin = new Usuario();
+        admin.setId(-1L);
+        admin.setEmail("admin");
+        admin.setNombre("Administrador");
+        admin.setRole("ADMIN");
+        return new ParticipanteUserDetails(admin);
+    }
+
+    @Test
+    void panelDeAdministracion() throws Exception {
+        // Página de resúmenes con el recuento de participantes en subconsulta + selector de sorteo anterior
+        RegistroSql.medir(() -> mockMvc.perform(get("/create").with(user(admin())))
+                        .andExpect(status().isOk()))
+                .comprobar(2, 0, 0, 0);
+    }
+
+    @Test
+    void crearSorteoConParticipantesNuevos() throws Exception {
+        SorteoFormDTO form = formulario("marta", "pablo", "sara");
+        var peticion = post("/create").with(user(admin()))
+                .param("nombre", form.getNombre())
+                .param("importeMinimo", "10")
+                .param("importeMaximo", "20");
+        for (int i = 0; i < form.getParticipantes().size(); i++) {
+            peticion.param("participantes[" + i + "].nombre", form.getParticipantes().get(i).getNombre())
+                    .param("participantes[" + i + "].email", form.getParticipantes().get(i).getEmail());
+        }
+
+        // SELECT: usuarios existentes antes de hashear y dentro de la transacción, y retraso del outbox.
+        // INSERT en lote por tabla: usuarios, sorteos (IDENTITY, va aparte), perfil_sorteo y email_outbox.
+        // UPDATE: asignado_perfil_id de los perfiles que regalan a uno guardado después que ellos.
+        RegistroSql.medir(() -> mockMvc.perform(peticion)
+                        .andExpect(status().is3xxRedirection())
+                        .andExpect(flash().attributeExists("success")))
+                .comprobar(3, 4, 1, 0);
+    }
+
+    @Test
+    void miPerfil() throws Exception {
+        Usuario ana = perfiles.getFirst().getUsuario();
+
+        RegistroSql.medir(() -> mockMvc.perform(get("/my-profile").with(user(new ParticipanteUserDetails(ana))))
+                        .andExpect(status().isOk()))
+                .comprobar(1, 0, 0, 0);
+    }
+
+    @Test
+    void perfilDeOtroParticipante() throws Exception {
+        Usuario ana = perfiles.getFirst().getUsuario();
+        Long luisId = perfiles.get(1).getUsuario().getId();
+
+        RegistroSql.medir(() -> mockMvc.perform(get("/my-profile/usuario/{id}", luisId)
+                                .with(user(new ParticipanteUserDetails(ana))))
+                        .andExpect(status().isOk()))
+                .comprobar(1, 0, 0, 0);
+    }
+
+    @Test
+    void revelacion() throws Exception {
+        String token = perfiles.getFirst().getToken();
+
+        // Perfil con sorteo, asignado y usuarios en una consulta + nombres del sorteo
+        RegistroSql.medir(() -> mockMvc.perform(get("/api/reveal").param("token", token).with(user(admin())))
+                        .andExpect(status().isOk()))
+                .comprobar(2, 0, 0, 0);
+
+        // La segunda vez sale de RevealCache
+        RegistroSql.medir(() -> mockMvc.perform(get("/api/reveal").param("token", token).with(user(admin())))
+                        .andExpect(status().isOk()))
+                .comprobar(0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,40 @@
+package dev.jotxee.secretsanta.dataset;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DistribucionTamanosTest {
+
+    @Test
+    void muestreaDentroDeLosTramosSegunSuPeso() {
+        DistribucionTamanos distribucion = DistribucionTamanos.parse("3-10:90, 500:10");
+        SplittableRandom random = new SplittableRandom(7);
+
+        int grandes = 0;
+        for (int i = 0; i < 10_000; i++) {
+            int tamano = distribucion.muestrear(random);
+            assertTrue(tamano == 500 || (tamano >= 3 && tamano <= 10), "tamaño fuera de los tramos: " + tamano);
+            if (tamano == 500) {
+                grandes++;
+            }
+        }
+        assertTrue(grandes > 800 && grandes < 1200, "proporción de sorteos grandes: " + grandes);
+        assertEquals(500, distribucion.maximo());
+        assertEquals(0.9 * 6.5 + 0.1 * 500, distribucion.media(), 1e-9);
+    }
+
+    @Test
+    void rechazaTramosNoValidos() {
+        assertThrows(IllegalArgumentException.class, () -> DistribucionTamanos.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> DistribucionTamanos.parse("3-10"));
+        assertThrows(IllegalArgumentException.class, () -> DistribucionTamanos.parse("1-10:5"));
+        assertThrows(IllegalArgumentException.class, () -> DistribucionTamanos.parse("10-3:5"));
+        assertThrows(IllegalArgumentException.class, () -> DistribucionTamanos.parse("3-10:0"));
+        assertThrows(IllegalArgumentException.class, () -> DistribucionTamanos.parse("a-b:1"));
+    }
+}
@@ -0,0 +1,90 @@
+package dev.jotxee.secretsanta.repository;
+
+import dev.jotxee.secretsanta.entity.Usuario;
+import dev.jotxee.secretsanta.util.EmailCryptoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Búsqueda por email mientras el backfill no ha terminado: las filas sin {@code email_hash} se encuentran
+ * por su cifrado antiguo.
+ *
+ * El contexto se crea de nuevo porque {@link UsuarioEmailLookupImpl} recuerda cuándo todas las filas tienen
+ * índice, y otro test podría haberlo dejado marcado.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+class UsuarioEmailLookupTest {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EmailCryptoService emailCryptoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void borrarLegados() {
+        // Que no queden filas sin índice para los tests que comparten la base de datos
+        jdbcTemplate.update("DELETE FROM usuarios WHERE email_hash IS NULL");
+    }
+
+    private Usuario guardar(String email) {
+        Usuario usuario = new Usuario();
+        usuario.setEmail(email);
+        usuario.setNombre("Lookup");
+        usuario.setPassword("{noop}secreto");
+        return usuarioRepository.save(usuario);
+    }
+
+    /**
+     * Deja la fila como estaba antes de la migración: cifrado AES/ECB y sin índice.
+     */
+    private Usuario guardarLegado(String email) {
+        Usuario usuario = guardar(email);
+        jdbcTemplate.update("UPDATE usuarios SET email = ?, email_hash = NULL WHERE id = ?",
+                emailCryptoService.encryptLegado(email), usuario.getId());
+        return usuario;
+    }
+
+    @Test
+    void encuentraLasFilasSinIndicePorElCifradoAntiguo() {
+        String email = "legado-" + UUID.randomUUID() + "@example.com";
+        Usuario legado = guardarLegado(email);
+
+        Usuario encontrado = usuarioRepository.findByEmail(email).orElseThrow();
+        assertEquals(legado.getId(), encontrado.getId());
+        assertEquals(email, encontrado.getEmail());
+        assertTrue(usuarioRepository.existsByEmail(email));
+        assertFalse(usuarioRepository.existsByEmail("nadie-" + UUID.randomUUID() + "@example.com"));
+    }
+
+    @Test
+    void mezclaFilasConIndiceYSinIndice() {
+        String conIndice = "nuevo-" + UUID.randomUUID() + "@example.com";
+        String sinIndice = "legado-" + UUID.randomUUID() + "@example.com";
+        Long idNuevo = guardar(conIndice).getId();
+        Long idLegado = guardarLegado(sinIndice).getId();
+
+        List<Long> ids = usuarioRepository.findByEmailIn(List.of(conIndice, sinIndice)).stream()
+                .map(Usuario::getId)
+                .sorted()
+                .toList();
+        assertEquals(List.of(idNuevo, idLegado), ids);
+    }
+}
@@ -0,0 +1,94 @@
+package dev.jotxee.secretsanta.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LimitadorLoginTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong ahora = new AtomicLong();
+
+    private LimitadorLogin limitador(int rafagaIp, int rafagaUsuario) {
+        return new LimitadorLogin(registry, rafagaIp, 60, rafagaUsuario, 6, 1, Duration.ZERO, ahora::get);
+    }
+
+    private void avanzar(long segundos) {
+        ahora.addAndGet(TimeUnit.SECONDS.toNanos(segundos));
+    }
+
+    @Test
+    void admiteLaRafagaDelUsuarioYLuegoUnIntentoCadaIntervalo() {
+        LimitadorLogin limitador = limitador(100, 5);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limitador.admitir("10.0.0.1", "Ana@Example.com").admitido());
+        }
+        LimitadorLogin.Decision rechazo = limitador.admitir("10.0.0.1", " ana@example.com ");
+        assertEquals(LimitadorLogin.Motivo.USUARIO, rechazo.motivo());
+        assertEquals(Duration.ofSeconds(10), rechazo.reintentarEn());
+
+        // Otro usuario desde la misma IP sigue pudiendo entrar
+        assertTrue(limitador.admitir("10.0.0.1", "luis@example.com").admitido());
+        // Y los fallos desde una IP no bloquean a la misma cuenta desde otra
+        assertTrue(limitador.admitir("10.0.0.2", "ana@example.com").admitido());
+
+        avanzar(10);
+        assertTrue(limitador.admitir("10.0.0.1", "ana@example.com").admitido());
+        assertFalse(limitador.admitir("10.0.0.1", "ana@example.com").admitido());
+        assertEquals(2, registry.get("secretsanta.login.intentos").tag("resultado", "limitado_usuario").counter().count());
+    }
+
+    @Test
+    void limitaPorIpAunqueCambieElUsuario() {
+        LimitadorLogin limitador = limitador(3, 5);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limitador.admitir("10.0.0.1", "usuario" + i).admitido());
+        }
+        assertEquals(LimitadorLogin.Motivo.IP, limitador.admitir("10.0.0.1", "otro").motivo());
+        assertTrue(limitador.admitir("10.0.0.9", "otro").admitido());
+    }
+
+    @Test
+    void elLoginCorrectoOlvidaLosFallosDelUsuario() {
+        LimitadorLogin limitador = limitador(100, 2);
+
+        limitador.admitir("10.0.0.1", "ana");
+        limitador.admitir("10.0.0.1", "ana");
+        assertFalse(limitador.admitir("10.0.0.1", "ana").admitido());
+
+        limitador.exito("10.0.0.1", "ana");
+        assertTrue(limitador.admitir("10.0.0.1", "ana").admitido());
+    }
+
+    @Test
+    void laLimpiezaQuitaSoloLosCubosYaVacios() {
+        LimitadorLogin limitador = limitador(100, 5);
+        limitador.admitir("10.0.0.1", "ana");
+        limitador.limpiar();
+        assertEquals(2, registry.get("secretsanta.login.limitador.claves").gauge().value());
+
+        avanzar(60);
+        limitador.limpiar();
+        assertEquals(0, registry.get("secretsanta.login.limitador.claves").gauge().value());
+    }
+
+    @Test
+    void rechazaVerificacionesPorEncimaDelTope() {
+        LimitadorLogin limitador = limitador(100, 5);
+
+        assertTrue(limitador.iniciarVerificacion());
+        assertFalse(limitador.iniciarVerificacion());
+        limitador.finVerificacion();
+        assertTrue(limitador.iniciarVerificacion());
+        assertEquals(1, registry.get("secretsanta.login.intentos").tag("resultado", "saturado").counter().count());
+    }
+}
@@ -0,0 +1,56 @@
+package dev.jotxee.secretsanta.security;
+
+import dev.jotxee.secretsanta.entity.Usuario;
+import dev.jotxee.secretsanta.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Un hash {@code {bcrypt}} con un coste menor que el configurado (10 en los tests) se sustituye en el login.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RehashPasswordTest {
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void elLoginRehasheaUnHashConCosteAntiguo() {
+        String antiguo = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("secreto");
+        assertTrue(passwordEncoder.upgradeEncoding(antiguo));
+
+        Usuario usuario = new Usuario();
+        usuario.setEmail("rehash-" + UUID.randomUUID() + "@example.com");
+        usuario.setNombre("Rehash");
+        usuario.setPassword(antiguo);
+        usuario = usuarioRepository.save(usuario);
+
+        authenticationManager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated(usuario.getEmail(), "secreto"));
+
+        String guardado = usuarioRepository.findById(usuario.getId()).orElseThrow().getPassword();
+        assertNotEquals(antiguo, guardado);
+        assertTrue(guardado.startsWith("{bcrypt}$2a$10$"), guardado);
+        assertFalse(passwordEncoder.upgradeEncoding(guardado));
+        assertTrue(passwordEncoder.matches("secreto", guardado));
+    }
+}
@@ -0,0 +1,94 @@
+package dev.jotxee.secretsanta.service;
+
+import dev.jotxee.secretsanta.entity.Usuario;
+import dev.jotxee.secretsanta.repository.UsuarioRepository;
+import dev.jotxee.secretsanta.util.EmailCryptoService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.verify;
+
+/**
+ * El backfill sobre H2 en modo PostgreSQL: migra por lotes del tamaño configurado hasta que no queda ninguna
+ * fila con el cifrado antiguo o sin índice. Se crea a mano porque en los tests no arranca solo.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class EmailIndiceBackfillTest {
+
+    private static final int LOTE = 2;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EmailCryptoService emailCryptoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long guardarLegado(String email) {
+        Usuario usuario = new Usuario();
+        usuario.setEmail(email);
+        usuario.setNombre("Backfill");
+        usuario.setPassword("{noop}secreto");
+        Long id = usuarioRepository.save(usuario).getId();
+        jdbcTemplate.update("UPDATE usuarios SET email = ?, email_hash = NULL WHERE id = ?",
+                emailCryptoService.encryptLegado(email), id);
+        return id;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void migraTodasLasFilasEnLotesDelTamanoConfigurado() {
+        Map<Long, String> emails = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            String email = "backfill" + i + "-" + UUID.randomUUID() + "@example.com";
+            emails.put(guardarLegado(email), email);
+        }
+
+        JdbcTemplate espia = Mockito.spy(jdbcTemplate);
+        EmailIndiceBackfill backfill = new EmailIndiceBackfill(espia, transactionTemplate, emailCryptoService);
+        ReflectionTestUtils.setField(backfill, "tamanoLote", LOTE);
+        backfill.ejecutar();
+
+        ArgumentCaptor<List<Object[]>> lotes = ArgumentCaptor.forClass(List.class);
+        verify(espia, atLeast(3)).batchUpdate(eq("UPDATE usuarios SET email = ?, email_hash = ? WHERE id = ?"), lotes.capture());
+        List<Long> migrados = new ArrayList<>();
+        for (List<Object[]> lote : lotes.getAllValues()) {
+            assertTrue(lote.size() <= LOTE, "Lote de " + lote.size() + " filas");
+            lote.forEach(fila -> migrados.add((Long) fila[2]));
+        }
+        assertTrue(migrados.containsAll(emails.keySet()), "Filas migradas: " + migrados);
+
+        emails.forEach((id, email) -> {
+            Map<String, Object> fila = jdbcTemplate.queryForMap("SELECT email, email_hash FROM usuarios WHERE id = ?", id);
+            String cifrado = (String) fila.get("email");
+            assertTrue(cifrado.startsWith(EmailCryptoService.PREFIJO_V2), cifrado);
+            assertEquals(email, emailCryptoService.decrypt(cifrado));
+            assertEquals(emailCryptoService.indice(email), fila.get("email_hash"));
+        });
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM usuarios WHERE email_hash IS NULL OR email NOT LIKE 'v2:%'", Integer.class));
+    }
+}
@@ -0,0 +1,169 @@
+package dev.jotxee.secretsanta.service;
+
+import dev.jotxee.secretsanta.entity.EmailOutbox;
+import dev.jotxee.secretsanta.repository.EmailOutboxRepository;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Garantías de la bandeja de salida sobre la base de datos: reclamar sin pisar a otro nodo, espera
+ * exponencial, FALLIDO al agotar los intentos y que la contraseña no se quede guardada. Solo se sustituye
+ * el envío SMTP ({@link MailDispatcher}).
+ */
+@SpringBootTest(properties = {
+        "app.mail.outbox.enabled=true",
+        "app.mail.outbox.intervalo=PT1H",
+        "app.mail.outbox.max-intentos=3",
+        "app.mail.outbox.espera-inicial=PT30S",
+        "app.mail.outbox.espera-maxima=PT1H"
+})
+@ActiveProfiles("test")
+class EmailOutboxDispatcherTest {
+
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private MailDispatcher mailDispatcher;
+
+    @BeforeEach
+    void vaciarBandeja() {
+        emailOutboxRepository.deleteAllInBatch();
+        when(mailDispatcher.mensajesAdmisibles()).thenReturn(100);
+    }
+
+    private EmailOutbox encolarPassword(String email) {
+        return emailOutboxRepository.save(EmailOutbox.password(email, "Ana", "secreta"));
+    }
+
+    private EmailOutbox recargar(EmailOutbox email) {
+        return emailOutboxRepository.findById(email.getId()).orElseThrow();
+    }
+
+    /**
+     * Deja el email listo otra vez, como si hubiera pasado la espera.
+     */
+    private void adelantar(EmailOutbox email) {
+        EmailOutbox actual = recargar(email);
+        actual.setSiguienteIntento(LocalDateTime.now().minusSeconds(1));
+        emailOutboxRepository.save(actual);
+    }
+
+    private void fallarTodos() {
+        when(mailDispatcher.enviar(anyList())).thenAnswer(invocacion -> {
+            List<MimeMessage> mensajes = invocacion.getArgument(0);
+            return mensajes.stream()
+                    .map(mensaje -> new MailDispatcher.Fallo(mensaje, new MailSendException("relay caído")))
+                    .toList();
+        });
+    }
+
+    @Test
+    void otroNodoSeSaltaLasFilasBloqueadasYLasReservadasNoSeVuelvenAReclamar() {
+        for (int i = 0; i < 3; i++) {
+            encolarPassword("bloqueo" + i + "@example.com");
+        }
+        TransactionTemplate nodoA = new TransactionTemplate(transactionManager);
+        TransactionTemplate nodoB = new TransactionTemplate(transactionManager);
+        nodoB.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Long> reclamadosA = nodoA.execute(status -> {
+            List<Long> ids = emailOutboxRepository.bloquearPendientes(ahora, 2);
+            // Mientras A tiene sus filas bloqueadas, B (otra conexión) solo ve la que queda libre
+            List<Long> reclamadosB = nodoB.execute(s -> emailOutboxRepository.bloquearPendientes(ahora, 10));
+            assertEquals(1, reclamadosB.size());
+            assertTrue(ids.stream().noneMatch(reclamadosB::contains));
+
+            emailOutboxRepository.reservar(ids, ahora.plusMinutes(5));
+            return ids;
+        });
+
+        assertEquals(2, reclamadosA.size());
+        List<Long> tras = nodoA.execute(status -> emailOutboxRepository.bloquearPendientes(LocalDateTime.now(), 10));
+        assertEquals(1, tras.size());
+        assertTrue(reclamadosA.stream().noneMatch(tras::contains));
+        reclamadosA.forEach(id -> assertEquals(1, emailOutboxRepository.findById(id).orElseThrow().getIntentos()));
+    }
+
+    @Test
+    void losFallosSeReprogramanConEsperaExponencialYAlFinalQuedanFallidos() {
+        fallarTodos();
+        EmailOutbox email = encolarPassword("fallo@example.com");
+
+        LocalDateTime antes = LocalDateTime.now();
+        dispatcher.procesarPendientes();
+        EmailOutbox primero = recargar(email);
+        assertEquals(EmailOutbox.Estado.PENDIENTE, primero.getEstado());
+        assertEquals(1, primero.getIntentos());
+        assertEsperaDe(Duration.ofSeconds(30), antes, primero.getSiguienteIntento());
+        assertNotNull(primero.getUltimoError());
+
+        adelantar(email);
+        antes = LocalDateTime.now();
+        dispatcher.procesarPendientes();
+        EmailOutbox segundo = recargar(email);
+        assertEquals(2, segundo.getIntentos());
+        assertEsperaDe(Duration.ofSeconds(60), antes, segundo.getSiguienteIntento());
+
+        adelantar(email);
+        dispatcher.procesarPendientes();
+        EmailOutbox descartado = recargar(email);
+        assertEquals(EmailOutbox.Estado.FALLIDO, descartado.getEstado());
+        assertEquals(3, descartado.getIntentos());
+        assertNull(descartado.getPassword(), "La contraseña no debe quedar guardada en un email descartado");
+        assertTrue(descartado.getUltimoError().contains("relay caído"));
+
+        // Un email FALLIDO no se vuelve a reclamar
+        adelantar(email);
+        dispatcher.procesarPendientes();
+        assertEquals(3, recargar(email).getIntentos());
+    }
+
+    @Test
+    void alEnviarseSeBorraLaContrasena() {
+        when(mailDispatcher.enviar(anyList())).thenReturn(List.of());
+        EmailOutbox email = encolarPassword("ok@example.com");
+        assertEquals("secreta", recargar(email).getPassword());
+
+        dispatcher.procesarPendientes();
+
+        EmailOutbox enviado = recargar(email);
+        assertEquals(EmailOutbox.Estado.ENVIADO, enviado.getEstado());
+        assertNotNull(enviado.getFechaEnvio());
+        assertNull(enviado.getPassword());
+    }
+
+    private static void assertEsperaDe(Duration espera, LocalDateTime antes, LocalDateTime siguiente) {
+        LocalDateTime minimo = antes.plus(espera);
+        LocalDateTime maximo = LocalDateTime.now().plus(espera);
+        assertTrue(!siguiente.isBefore(minimo) && !siguiente.isAfter(maximo),
+                "Siguiente intento " + siguiente + " fuera de [" + minimo + ", " + maximo + "]");
+    }
+}
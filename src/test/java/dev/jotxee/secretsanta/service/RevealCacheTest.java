@@ -0,0 +1,122 @@
+package dev.jotxee.secretsanta.service;
+
+import dev.jotxee.secretsanta.dto.RevealResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RevealCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private static RevealResponse respuesta(String token) {
+        return new RevealResponse(List.of("Ana", "Luis"), "Luis", token, null, "Sorteo", 10.0, 20.0);
+    }
+
+    private static Function<String, RevealCache.Carga> cargador(AtomicInteger cargas, long sorteoId) {
+        return token -> {
+            cargas.incrementAndGet();
+            return new RevealCache.Carga(sorteoId, respuesta(token));
+        };
+    }
+
+    private double contador(String resultado) {
+        return registry.get("secretsanta.reveal.cache").tag("resultado", resultado).counter().count();
+    }
+
+    @Test
+    void sirveDesdeLaCacheHastaQueSeInvalidaElSorteo() {
+        RevealCache cache = new RevealCache(registry, 100, Duration.ofMinutes(10));
+        AtomicInteger cargas = new AtomicInteger();
+
+        RevealResponse primera = cache.obtener("t1", cargador(cargas, 1L));
+        assertSame(primera, cache.obtener("t1", cargador(cargas, 1L)));
+        assertEquals(1, cargas.get());
+        assertEquals(1, contador("acierto"));
+        assertEquals(1, contador("fallo"));
+
+        cache.invalidarSorteo(2L);
+        cache.obtener("t1", cargador(cargas, 1L));
+        assertEquals(1, cargas.get());
+
+        cache.invalidarSorteo(1L);
+        cache.obtener("t1", cargador(cargas, 1L));
+        assertEquals(2, cargas.get());
+    }
+
+    @Test
+    void expulsaLaEntradaUsadaHaceMasTiempo() {
+        RevealCache cache = new RevealCache(registry, 2, Duration.ofMinutes(10));
+        AtomicInteger cargas = new AtomicInteger();
+
+        cache.obtener("a", cargador(cargas, 1L));
+        cache.obtener("b", cargador(cargas, 1L));
+        cache.obtener("a", cargador(cargas, 1L));
+        cache.obtener("c", cargador(cargas, 1L));
+        assertEquals(3, cargas.get());
+
+        cache.obtener("a", cargador(cargas, 1L));
+        assertEquals(3, cargas.get());
+        cache.obtener("b", cargador(cargas, 1L));
+        assertEquals(4, cargas.get());
+    }
+
+    @Test
+    void peticionesSimultaneasHacenUnaSolaCarga() throws Exception {
+        RevealCache cache = new RevealCache(registry, 100, Duration.ofMinutes(10));
+        AtomicInteger cargas = new AtomicInteger();
+        CountDownLatch cargando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        Function<String, RevealCache.Carga> lento = token -> {
+            cargas.incrementAndGet();
+            cargando.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new RevealCache.Carga(1L, respuesta(token));
+        };
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            Future<RevealResponse> primera = pool.submit(() -> cache.obtener("t", lento));
+            cargando.await();
+            List<Future<RevealResponse>> resto = IntStream.range(0, 7)
+                    .mapToObj(i -> pool.submit(() -> cache.obtener("t", lento)))
+                    .toList();
+            liberar.countDown();
+
+            for (Future<RevealResponse> futuro : resto) {
+                assertSame(primera.get(), futuro.get());
+            }
+        }
+        assertEquals(1, cargas.get());
+    }
+
+    @Test
+    void noGuardaLosErrores() {
+        RevealCache cache = new RevealCache(registry, 100, Duration.ofMinutes(10));
+        AtomicInteger cargas = new AtomicInteger();
+        Function<String, RevealCache.Carga> falla = token -> {
+            cargas.incrementAndGet();
+            throw new IllegalArgumentException("Token inválido o no encontrado");
+        };
+
+        assertThrows(IllegalArgumentException.class, () -> cache.obtener("x", falla));
+        assertThrows(IllegalArgumentException.class, () -> cache.obtener("x", falla));
+        assertEquals(2, cargas.get());
+    }
+}
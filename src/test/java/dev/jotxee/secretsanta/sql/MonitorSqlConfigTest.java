@@ -0,0 +1,40 @@
+package dev.jotxee.secretsanta.sql;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El proxy de datasource-proxy no debe esconder el pool: Spring Boot lo busca con {@code unwrap} para
+ * registrar las métricas {@code hikaricp.*} y el health.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MonitorSqlConfigTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void elProxySeDesenvuelveHastaHikariYSusMetricasSeRegistran() throws Exception {
+        assertInstanceOf(ProxyDataSource.class, dataSource);
+        assertTrue(dataSource.isWrapperFor(HikariDataSource.class));
+        assertNotNull(dataSource.unwrap(HikariDataSource.class));
+
+        assertNotNull(meterRegistry.find("hikaricp.connections").gauge(), "Faltan las métricas hikaricp.*");
+        assertNotNull(meterRegistry.find("hikaricp.connections.max").gauge());
+    }
+}
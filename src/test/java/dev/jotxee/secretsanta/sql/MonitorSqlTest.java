@@ -0,0 +1,55 @@
+package dev.jotxee.secretsanta.sql;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MonitorSqlTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private static void ejecutar(MonitorSql monitor, String sql) {
+        ExecutionInfo info = new ExecutionInfo();
+        List<QueryInfo> consultas = List.of(new QueryInfo(sql));
+        monitor.beforeQuery(info, consultas);
+        monitor.afterQuery(info, consultas);
+    }
+
+    @Test
+    void guardaLasLentasSinValoresYSoloLasUltimas() {
+        MonitorSql monitor = new MonitorSql(registry, Duration.ZERO, 2);
+
+        ejecutar(monitor, "select * from usuarios where email_hash = ?");
+        ejecutar(monitor, "update perfil_sorteo set preferencias = 'me gusta el café' where id = ?");
+        ejecutar(monitor, "select * from sorteos where nombre = 'L''Hospitalet'");
+
+        List<MonitorSql.SentenciaLenta> lentas = monitor.lentas();
+        assertEquals(2, lentas.size());
+        assertEquals("select * from sorteos where nombre = ?", lentas.get(0).sql());
+        assertEquals("update perfil_sorteo set preferencias = ? where id = ?", lentas.get(1).sql());
+        assertEquals(2, registry.get("secretsanta.sql").tag("metodo", MetodoRepositorio.NINGUNO).tag("tipo", "select")
+                .timer().count());
+        assertEquals(3, registry.get("secretsanta.sql.lentas").counter().count());
+    }
+
+    @Test
+    void acumulaLasSentenciasDeLaPeticion() {
+        MonitorSql monitor = new MonitorSql(registry, Duration.ofHours(1), 10);
+
+        monitor.iniciarPeticion();
+        ejecutar(monitor, "select 1");
+        ejecutar(monitor, "insert into usuarios values (?)");
+        monitor.terminarPeticion("/my-profile");
+        ejecutar(monitor, "select 2");
+
+        assertEquals(2, registry.get("secretsanta.sql.peticion.sentencias").tag("uri", "/my-profile")
+                .summary().totalAmount());
+        assertEquals(0, monitor.lentas().size());
+    }
+}
@@ -0,0 +1,114 @@
+package dev.jotxee.secretsanta.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara durante una acción, para fijar en los tests cuántas
+ * consultas hace cada endpoint o método de servicio y detectar N+1 en cuanto reaparecen.
+ *
+ * Se registra como {@link StatementInspector} de Hibernate con la propiedad {@link #PROPIEDAD}:
+ *
+ * <pre>
+ * &#64;SpringBootTest(properties = RegistroSql.PROPIEDAD)
+ * ...
+ * RegistroSql.medir(() -> mockMvc.perform(get("/my-profile")...)).comprobar(1, 0, 0, 0);
+ * </pre>
+ *
+ * Se cuenta cada sentencia preparada: un lote JDBC de INSERT o UPDATE cuenta una vez, igual que un viaje
+ * a la base de datos. Las consultas hechas con JdbcTemplate no pasan por Hibernate y no se ven.
+ */
+public class RegistroSql implements StatementInspector {
+
+    public static final String PROPIEDAD =
+            "spring.jpa.properties.hibernate.session_factory.statement_inspector=dev.jotxee.secretsanta.support.RegistroSql";
+
+    public enum Tipo { SELECT, INSERT, UPDATE, DELETE, SECUENCIA, OTRA }
+
+    /** Hibernate crea el inspector por nombre de clase, así que lo capturado vive aquí; null = no se mide. */
+    private static volatile List<String> capturadas;
+
+    @FunctionalInterface
+    public interface Accion {
+        void ejecutar() throws Exception;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> destino = capturadas;
+        if (destino != null) {
+            destino.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Ejecuta la acción y devuelve las sentencias que Hibernate ha preparado mientras tanto.
+     * Las mediciones no pueden anidarse ni ejecutarse en paralelo.
+     */
+    public static synchronized Recuento medir(Accion accion) throws Exception {
+        List<String> sentencias = Collections.synchronizedList(new ArrayList<>());
+        capturadas = sentencias;
+        try {
+            accion.ejecutar();
+        } finally {
+            capturadas = null;
+        }
+        return new Recuento(List.copyOf(sentencias));
+    }
+
+    static Tipo clasificar(String sql) {
+        String normalizada = sql.strip().toLowerCase(Locale.ROOT);
+        if (normalizada.contains("next value for") || normalizada.contains("nextval(")) {
+            return Tipo.SECUENCIA;
+        }
+        if (normalizada.startsWith("select") || normalizada.startsWith("with")) {
+            return Tipo.SELECT;
+        }
+        if (normalizada.startsWith("insert")) {
+            return Tipo.INSERT;
+        }
+        if (normalizada.startsWith("update")) {
+            return Tipo.UPDATE;
+        }
+        if (normalizada.startsWith("delete")) {
+            return Tipo.DELETE;
+        }
+        return Tipo.OTRA;
+    }
+
+    /**
+     * Sentencias capturadas en una medición, en orden.
+     */
+    public record Recuento(List<String> sentencias) {
+
+        public long de(Tipo tipo) {
+            return sentencias.stream().filter(sql -> clasificar(sql) == tipo).count();
+        }
+
+        /**
+         * Comprueba el número exacto de sentencias de cada tipo. Las de secuencia no se comprueban: con
+         * {@code allocationSize = 100} solo aparecen cuando se agota el bloque de ids reservado, y eso depende
+         * de lo que hayan insertado antes otros tests.
+         */
+        public void comprobar(int selects, int inserts, int updates, int deletes) {
+            String esperado = "SELECT=" + selects + " INSERT=" + inserts + " UPDATE=" + updates + " DELETE=" + deletes
+                    + " OTRA=0";
+            String obtenido = "SELECT=" + de(Tipo.SELECT) + " INSERT=" + de(Tipo.INSERT) + " UPDATE=" + de(Tipo.UPDATE)
+                    + " DELETE=" + de(Tipo.DELETE) + " OTRA=" + de(Tipo.OTRA);
+            assertEquals(esperado, obtenido, this::describir);
+        }
+
+        private String describir() {
+            StringBuilder texto = new StringBuilder("Sentencias ejecutadas (" + sentencias.size() + "):");
+            sentencias.forEach(sql -> texto.append("\n  [").append(clasificar(sql)).append("] ").append(sql));
+            return texto.toString();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package dev.jotxee.secretsanta.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailCryptoServiceTest {
+
+    private static final String CLAVE = "test-key";
+
+    private final EmailCryptoService servicio = new EmailCryptoService(CLAVE, "", new SimpleMeterRegistry());
+
+    /**
+     * Cifrado tal y como lo hacía la versión anterior: AES/ECB con los primeros 16 bytes de la clave.
+     */
+    private static String cifrarComoAntes(String email) throws Exception {
+        byte[] clave = new byte[16];
+        byte[] configurada = CLAVE.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(configurada, 0, clave, 0, Math.min(configurada.length, 16));
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(clave, "AES"));
+        return Base64.getEncoder().encodeToString(cipher.doFinal(email.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void cifraConGcmYDescifraLoMismo() {
+        String cifrado = servicio.encrypt("ana@example.com");
+
+        assertTrue(cifrado.startsWith(EmailCryptoService.PREFIJO_V2), cifrado);
+        assertFalse(EmailCryptoService.esLegado(cifrado));
+        assertEquals("ana@example.com", servicio.decrypt(cifrado));
+    }
+
+    @Test
+    void elMismoEmailDaCifradosDistintos() {
+        String primero = servicio.encrypt("ana@example.com");
+        String segundo = servicio.encrypt("ana@example.com");
+
+        assertNotEquals(primero, segundo);
+        assertEquals(servicio.decrypt(primero), servicio.decrypt(segundo));
+    }
+
+    @Test
+    void rechazaUnCifradoManipulado() {
+        String cifrado = servicio.encrypt("ana@example.com");
+        byte[] datos = Base64.getDecoder().decode(cifrado.substring(EmailCryptoService.PREFIJO_V2.length()));
+        datos[datos.length - 1] ^= 1;
+        String manipulado = EmailCryptoService.PREFIJO_V2 + Base64.getEncoder().encodeToString(datos);
+
+        assertThrows(RuntimeException.class, () -> servicio.decrypt(manipulado));
+        // El fallo no deja inservible el cifrador del hilo
+        assertEquals("ana@example.com", servicio.decrypt(cifrado));
+    }
+
+    @Test
+    void sigueDescifrandoLosValoresDelEsquemaAnterior() throws Exception {
+        String legado = cifrarComoAntes("luis@example.com");
+
+        assertTrue(EmailCryptoService.esLegado(legado));
+        assertEquals("luis@example.com", servicio.decrypt(legado));
+        assertEquals(legado, servicio.encryptLegado("luis@example.com"));
+        assertEquals(List.of("luis@example.com", "ana@example.com"),
+                servicio.decryptAll(List.of(legado, servicio.encrypt("ana@example.com"))));
+    }
+
+    @Test
+    void elIndiceEsDeterministaYDependeDeSuClave() {
+        String indice = servicio.indice("ana@example.com");
+
+        assertEquals(64, indice.length());
+        assertEquals(indice, servicio.indice("ana@example.com"));
+        assertNotEquals(indice, servicio.indice("Ana@example.com"));
+        assertEquals(List.of(indice), servicio.indiceAll(List.of("ana@example.com")));
+        assertEquals(indice.substring(0, 12), servicio.referencia("ana@example.com"));
+
+        EmailCryptoService otraClaveIndice = new EmailCryptoService(CLAVE, "otra-clave", new SimpleMeterRegistry());
+        assertNotEquals(indice, otraClaveIndice.indice("ana@example.com"));
+    }
+}
@@ -0,0 +1,36 @@
+package dev.jotxee.secretsanta.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PlantillaHtmlTest {
+
+    private static final String HTML = "<p>{{A}} y {{B}}</p><a href=\"{{C}}\">{{A}}</a>";
+
+    @Test
+    void renderizaIgualQueReemplazarCadaMarcador() {
+        Map<String, String> valores = Map.of("A", "uno", "B", "dos", "C", "https://x/?id=1");
+
+        String esperado = HTML.replace("{{A}}", "uno").replace("{{B}}", "dos").replace("{{C}}", "https://x/?id=1");
+
+        assertEquals(esperado, PlantillaHtml.compilar(HTML).renderizar(valores));
+    }
+
+    @Test
+    void fijarResuelveSoloLosHuecosIndicados() {
+        PlantillaHtml parcial = PlantillaHtml.compilar(HTML).fijar(Map.of("B", "dos"));
+
+        assertEquals(List.of("A", "C", "A"), parcial.huecos());
+        assertEquals("<p>uno y dos</p><a href=\"u\">uno</a>", parcial.renderizar(Map.of("A", "uno", "C", "u")));
+    }
+
+    @Test
+    void huecosSinValorQuedanVaciosYElTextoSinMarcadoresNoCambia() {
+        assertEquals("<p> y </p><a href=\"\"></a>", PlantillaHtml.compilar(HTML).renderizar(Map.of()));
+        assertEquals("{{minúsculas}}", PlantillaHtml.compilar("{{minúsculas}}").renderizar(Map.of()));
+    }
+}